@@ -22,4 +22,4 @@ fi
 
 # Run the program
 echo "Running program..."
-java -cp "$OUT_DIR" Main
+java --enable-native-access=ALL-UNNAMED -cp "$OUT_DIR" Main
@@ -1,7 +1,9 @@
 
+import player.AutosaveService;
 import player.PlayerConfig;
 import player.PlayerStats;
 import utilities.CLIUtils;
+import utilities.DebugLogger;
 import utilities.AsciiArt;
 import utilities.Loggable;
 import player.Player;
@@ -17,6 +19,7 @@ import java.util.List;
 public class NewStage implements Loggable {
 
     private PlayerConfig config;
+    private AutosaveService autosave;
     private String userName = "player";
     private static final String SANDBOX_ROOT = "sandbox";
     private static final String INVENTORY_ROOT = "sandbox/inventory";
@@ -26,6 +29,11 @@ public class NewStage implements Loggable {
     private final Sandbox sandbox = new Sandbox(SANDBOX_ROOT, INVENTORY_ROOT, this.player.getStats());
     private boolean exitedNormally = false;
 
+    static {
+        // Read the ASCII art while the sandbox and player state are being set up
+        AsciiArt.preload();
+    }
+
     private void initializeLevels() {
         levels.add(new Level1_Squire(sandbox, player));
         levels.add(new Level2_Apprentice_Knight(sandbox, player));
@@ -102,10 +110,12 @@ public class NewStage implements Loggable {
                 playerPath = getPlayerPath();
                 config = new PlayerConfig(playerPath, player, "@#$52kj3rf2309235$#@348fqwb34k23u5o8efe29g53br3urbiudf2k35h3u24i9ty923");
 
-                boolean load = sandbox.getBackupManager().confirmLoadBackup(userName);
-                if (load)
+                // The save names the backup generation it was checkpointed with; restore that one
+                boolean load = sandbox.getBackupManager().confirmLoadBackup(userName, () -> {
                     config.load();
-                else {
+                    return config.getBackupGeneration();
+                });
+                if (!load) {
                     IO.println("We'll create the new adventure for you.");
                     resetPlayerStats(playerStats);
                 }
@@ -131,18 +141,31 @@ public class NewStage implements Loggable {
         CLIUtils.waitAnyKey();
         initializeLevels();
 
+        // Hard-link snapshots keep the shutdown hook down to a handful of link() calls
+        sandbox.getBackupManager().setBackupFormat(SandboxBackupManager.BackupFormat.SNAPSHOT);
+        // Stage transitions only rename the old tree away; it is deleted in the background
+        sandbox.getBackupManager().setFlushStrategy(SandboxBackupManager.FlushStrategy.TRASH);
+
+        // Progress is journaled as it changes and checkpointed with an inventory snapshot every 30 s,
+        // so the shutdown hook only checkpoints what is left
+        SandboxBackupManager backups = sandbox.getBackupManager();
+        autosave = new AutosaveService(config, playerStats, () -> backups.checkpoint(userName));
+        autosave.start();
+
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             log("Saving player configuration before exit...");
             try {
-                if (exitedNormally
-                        || sandbox.getBackupManager().backup(SandboxBackupManager.BackupMode.BACKUP_ONLY_INVENTORY,
-                                userName)) {
-                    config.save();
-                }
+                autosave.stop(() -> {
+                    if (exitedNormally)
+                        return backups.checkpoint(userName);
+                    return backups.backup(SandboxBackupManager.BackupMode.BACKUP_ONLY_INVENTORY, null, userName)
+                            ? backups.getLastGeneration() : -1;
+                });
                 log("Player configuration saved successfully!");
             } catch (Exception e) {
                 log("Failed to save player configuration: " + e.getMessage());
             }
+            DebugLogger.flush();
         }));
 
         do {
@@ -3,6 +3,7 @@ package elements.doors;
 import gameplay.CommandContext;
 import gameplay.CommandMiddleware;
 import gameplay.CommandResult;
+import gameplay.Mission;
 import player.Player;
 
 import java.io.IOException;
@@ -21,6 +22,7 @@ public class HiddenDoor implements CommandMiddleware {
     private boolean hasBeenUnlocked;
     private boolean keyWasPlacedCorrectly = false;
     private Player player;
+    private Mission.ProgressListener progressListener;
 
     public HiddenDoor(String name, String id, Path doorPath) {
         this.name = name;
@@ -48,6 +50,10 @@ public class HiddenDoor implements CommandMiddleware {
         }
     }
 
+    public void setProgressListener(Mission.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public boolean hasBeenUnlocked() {
         return hasBeenUnlocked;
     }
@@ -188,7 +194,10 @@ public class HiddenDoor implements CommandMiddleware {
                 return;
             }
 
+            boolean wasLocked = !hasBeenUnlocked;
             hasBeenUnlocked = true;
+            if (wasLocked && progressListener != null)
+                progressListener.onProgressChanged(true);
             keyWasPlacedCorrectly = true;  // <<*** IMPORTANT LINE ***>>
             IO.println("[HiddenDoor] Door unlocked successfully!");
 
@@ -1,8 +1,10 @@
 package elements.enemies;
 
+import engine.SnapshotGuard;
 import gameplay.CommandContext;
 import gameplay.CommandMiddleware;
 import gameplay.CommandResult;
+import gameplay.Mission;
 import player.Player;
 
 import java.io.IOException;
@@ -21,6 +23,7 @@ public class Enemy implements CommandMiddleware {
     private boolean defeated = false;
     private Player player;
     private List<Enemy> troupe;
+    private Mission.ProgressListener progressListener;
 
     // -------------------------------------------------
     // Constructor + setters
@@ -36,6 +39,7 @@ public class Enemy implements CommandMiddleware {
                 Files.createDirectories(enemyPath.getParent());
 
                 String content = "id=" + id + "\nname=" + name + "\n";
+                SnapshotGuard.beforeWrite(enemyPath);
                 Files.writeString(enemyPath, content);
             } catch (IOException e) {
                 System.err.println("[Enemy Spawn Error] Failed to create enemy file: " + e.getMessage());
@@ -56,6 +60,10 @@ public class Enemy implements CommandMiddleware {
         this.troupe = troupe;
     }
 
+    public void setProgressListener(Mission.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public boolean hasBeenDefeated() {
         return defeated;
     }
@@ -195,6 +203,8 @@ public class Enemy implements CommandMiddleware {
         // 1. Mark enemy defeated
         if ("rm".equals(command) && deletedNorm.contains(myPathNorm) && !hasBeenDefeated()) {
             defeated = true;
+            if (progressListener != null)
+                progressListener.onProgressChanged(true);
             System.out.println("[Enemy defeated] " + name + " has been defeated!");
         }
 
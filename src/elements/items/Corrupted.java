@@ -10,7 +10,15 @@ public class Corrupted extends Shards {
 
     public String getCorrectName() {return this.correctName;}
 
-    public void setIsCorrectName(boolean isCorrectName) {this.isCorrectName = isCorrectName;}
+    public void setIsCorrectName(boolean isCorrectName) {
+        boolean wasCompleted = isCompleted();
+        this.isCorrectName = isCorrectName;
+        publishProgress(wasCompleted);
+    }
 
     public boolean isCorrectName() {return this.isCorrectName;}
+
+    /** Purified only once both renamed and returned to its folder. */
+    @Override
+    public boolean isCompleted() {return isCorrectName && isCorrectDir();}
 }
@@ -1,12 +1,26 @@
 package elements.items;
 
+import gameplay.Mission;
+
 public class Decoy extends Movables {
     private boolean isDeleted = false;
+    private Mission.ProgressListener progressListener;
 
     public Decoy(String name, String id) {
         super(name, id);
     }
 
+    public void setProgressListener(Mission.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public boolean isDeleted() {return isDeleted;}
-    public void setDeleted(boolean deleted) {isDeleted = deleted;}
+
+    public void setDeleted(boolean deleted) {
+        if (isDeleted == deleted)
+            return;
+        isDeleted = deleted;
+        if (progressListener != null)
+            progressListener.onProgressChanged(deleted);
+    }
 }
@@ -1,6 +1,7 @@
 package elements.items;
 
 import gameplay.CommandResult;
+import storage.Storage;
 
 public class Letter extends Scroll {
 
@@ -10,6 +11,11 @@ public class Letter extends Scroll {
         super(name, sourceFilePath, EXTENSION);
     }
 
+    // Rebuilds a letter that is already stored in an inventory
+    public Letter(String label, String id, Storage storage) {
+        super(label, id, storage);
+    }
+
     public Letter(String name, CommandResult result) {
 //        IO.println("Path " + result.path());
 //        IO.println("Subject " +result.subject());
@@ -20,6 +20,11 @@ public class Scroll extends RetrievableItem {
         super(sourceFilePath, name, storage);
     }
 
+    // Rebuilds a scroll that is already stored in an inventory
+    public Scroll(String label, String id, Storage storage) {
+        super(label, id, storage);
+    }
+
     public void read() {
         for (String line : retrieve()) {
             IO.println(line);
@@ -1,8 +1,11 @@
 package elements.items;
 
+import gameplay.Mission;
+
 public class Shards extends Movables {
     private final String targetDir;
     private boolean correctDir = false;
+    private Mission.ProgressListener progressListener;
 
 
     public Shards(String name, String id, String targetDir) {
@@ -10,8 +13,26 @@ public class Shards extends Movables {
         this.targetDir = targetDir;
     }
 
+    public void setProgressListener(Mission.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public String getTargetDir() {return targetDir;}
     public boolean isCorrectDir() {return correctDir;}
 
-    public void setCorrectDir(boolean correctDir) {this.correctDir = correctDir;}
+    /** Whether this shard counts as done for its mission. */
+    public boolean isCompleted() {return correctDir;}
+
+    public void setCorrectDir(boolean correctDir) {
+        boolean wasCompleted = isCompleted();
+        this.correctDir = correctDir;
+        publishProgress(wasCompleted);
+    }
+
+    // Reports a change in isCompleted() since wasCompleted, if there was one
+    protected void publishProgress(boolean wasCompleted) {
+        boolean completed = isCompleted();
+        if (completed != wasCompleted && progressListener != null)
+            progressListener.onProgressChanged(completed);
+    }
 }
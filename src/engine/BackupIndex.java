@@ -0,0 +1,215 @@
+package engine;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * On-disk index of every backup generation in the cache directory.
+ * <p>
+ * One tab-separated line per generation records its owner, format, size and
+ * access statistics, so listing, picking the latest generation and choosing
+ * eviction victims never walk the cache tree. Every operation re-reads the
+ * index under an exclusive lock on a sibling lock file, which keeps several
+ * game processes sharing one cache directory consistent. Creating a backup
+ * holds that lock from picking the generation number until the evicted
+ * generations are deleted, so two processes never write, or delete, the same
+ * generation at once.
+ */
+final class BackupIndex {
+
+    record Entry(String identifier, int generation, SandboxBackupManager.BackupFormat format,
+                 long bytes, long createdAt, long lastAccessAt, int accessCount) {
+
+        Entry touched(long now) {
+            return new Entry(identifier, generation, format, bytes, createdAt, now, accessCount + 1);
+        }
+    }
+
+    @FunctionalInterface
+    interface Operation<T> {
+        T apply(List<Entry> entries) throws IOException;
+    }
+
+    /** Writes the backup files for {@code generation} and describes them. */
+    @FunctionalInterface
+    interface GenerationWriter {
+        Entry write(int generation) throws IOException;
+    }
+
+    /** Deletes the files of an evicted generation. */
+    @FunctionalInterface
+    interface Evictor {
+        void evict(Entry entry) throws IOException;
+    }
+
+    private final Path indexFile;
+    private final Path lockFile;
+
+    BackupIndex(Path indexFile) {
+        this.indexFile = indexFile;
+        this.lockFile = indexFile.resolveSibling(indexFile.getFileName() + ".lock");
+    }
+
+    boolean exists() {
+        return Files.exists(indexFile);
+    }
+
+    Entry latest(String identifier) throws IOException {
+        return locked(false, entries -> entries.stream()
+                .filter(e -> e.identifier().equals(identifier))
+                .max(Comparator.comparingInt(Entry::generation))
+                .orElse(null));
+    }
+
+    List<Entry> list() throws IOException {
+        return locked(false, List::copyOf);
+    }
+
+    void touch(Entry entry) throws IOException {
+        locked(true, entries -> {
+            for (int i = 0; i < entries.size(); i++) {
+                Entry e = entries.get(i);
+                if (e.identifier().equals(entry.identifier()) && e.generation() == entry.generation())
+                    entries.set(i, e.touched(System.currentTimeMillis()));
+            }
+            return null;
+        });
+    }
+
+    void replaceAll(List<Entry> rebuilt) throws IOException {
+        locked(true, entries -> {
+            entries.clear();
+            entries.addAll(rebuilt);
+            return null;
+        });
+    }
+
+    /**
+     * Picks the next generation of {@code identifier}, lets {@code writer}
+     * create it and adds it to the index. Older generations of the same owner
+     * beyond {@code maxGenerations} and, while the cache is over
+     * {@code budgetBytes}, the least valuable generations of any owner are
+     * then handed to {@code evictor} and dropped from the index. The new
+     * generation itself is never evicted. All of it happens under the index
+     * lock; if {@code writer} fails the index is left untouched.
+     *
+     * @return the entry created
+     */
+    Entry create(String identifier, GenerationWriter writer, int maxGenerations, long budgetBytes,
+                       SandboxBackupManager.EvictionPolicy policy, Evictor evictor) throws IOException {
+        return locked(true, entries -> {
+            int generation = entries.stream()
+                    .filter(e -> e.identifier().equals(identifier))
+                    .mapToInt(Entry::generation)
+                    .max()
+                    .orElse(0) + 1;
+
+            Entry created = writer.write(generation);
+            List<Entry> evicted = selectEvictions(entries, created, maxGenerations, budgetBytes, policy);
+            for (Entry entry : evicted)
+                evictor.evict(entry);
+            return created;
+        });
+    }
+
+    private static List<Entry> selectEvictions(List<Entry> entries, Entry created, int maxGenerations,
+                                               long budgetBytes, SandboxBackupManager.EvictionPolicy policy) {
+        entries.add(created);
+        List<Entry> evicted = new ArrayList<>();
+
+        entries.stream()
+                .filter(e -> e.identifier().equals(created.identifier()))
+                .sorted(Comparator.comparingInt(Entry::generation).reversed())
+                .skip(maxGenerations)
+                .forEach(evicted::add);
+        entries.removeAll(evicted);
+
+        long total = entries.stream().mapToLong(Entry::bytes).sum();
+        if (total > budgetBytes) {
+            Comparator<Entry> order = switch (policy) {
+                case LRU -> Comparator.comparingLong(Entry::lastAccessAt);
+                case LFU -> Comparator.comparingInt(Entry::accessCount)
+                        .thenComparingLong(Entry::lastAccessAt);
+            };
+
+            List<Entry> candidates = entries.stream()
+                    .filter(e -> e != created)
+                    .sorted(order)
+                    .toList();
+
+            for (Entry candidate : candidates) {
+                if (total <= budgetBytes)
+                    break;
+                evicted.add(candidate);
+                entries.remove(candidate);
+                total -= candidate.bytes();
+            }
+        }
+        return evicted;
+    }
+
+    private <T> T locked(boolean write, Operation<T> operation) throws IOException {
+        synchronized (this) {
+            try (FileChannel channel = FileChannel.open(lockFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock ignored = channel.lock()) {
+
+                List<Entry> entries = read();
+                T result = operation.apply(entries);
+                if (write)
+                    write(entries);
+                return result;
+            }
+        }
+    }
+
+    private List<Entry> read() throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(indexFile))
+            return entries;
+
+        try (BufferedReader reader = Files.newBufferedReader(indexFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank() || line.startsWith("#"))
+                    continue;
+
+                String[] f = line.split("\t");
+                if (f.length != 7)
+                    continue; // torn or foreign line, the backup is simply no longer tracked
+
+                entries.add(new Entry(f[0], Integer.parseInt(f[1]),
+                        SandboxBackupManager.BackupFormat.valueOf(f[2]),
+                        Long.parseLong(f[3]), Long.parseLong(f[4]), Long.parseLong(f[5]),
+                        Integer.parseInt(f[6])));
+            }
+        }
+        return entries;
+    }
+
+    private void write(List<Entry> entries) throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            writer.write("# identifier\tgeneration\tformat\tbytes\tcreatedAt\tlastAccessAt\taccessCount");
+            writer.newLine();
+            for (Entry e : entries) {
+                writer.write(String.join("\t", e.identifier(), String.valueOf(e.generation()),
+                        e.format().name(), String.valueOf(e.bytes()), String.valueOf(e.createdAt()),
+                        String.valueOf(e.lastAccessAt()), String.valueOf(e.accessCount())));
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
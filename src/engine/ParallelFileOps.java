@@ -0,0 +1,210 @@
+package engine;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Fork/join tree operations used by {@link SandboxBackupManager}.
+ * <p>
+ * Every directory becomes its own task and its files are handed out in
+ * batches, so independent subtrees are copied or deleted in parallel. Both
+ * operations stream each directory once; nothing is collected or sorted up
+ * front. Symbolic links are never followed: a mirror recreates them as
+ * links with the same target, and a delete removes the link itself.
+ */
+final class ParallelFileOps {
+
+    private static final int FILES_PER_TASK = 32;
+
+    @FunctionalInterface
+    interface FileTransfer {
+        void apply(Path source, Path target) throws IOException;
+    }
+
+    private ParallelFileOps() {
+    }
+
+    /**
+     * Recreates the directory structure of {@code src} under {@code dest} and
+     * applies {@code transfer} to every regular file (copy, hard link, ...).
+     */
+    static void mirror(Path src, Path dest, FileTransfer transfer) throws IOException {
+        if (Files.isSymbolicLink(src)) {
+            copyLink(src, dest);
+            return;
+        }
+        if (!Files.isDirectory(src, LinkOption.NOFOLLOW_LINKS)) {
+            transfer.apply(src, dest);
+            return;
+        }
+        run(new MirrorTask(src, dest, transfer));
+    }
+
+    private static void copyLink(Path link, Path target) throws IOException {
+        Files.deleteIfExists(target);
+        Files.createSymbolicLink(target, Files.readSymbolicLink(link));
+    }
+
+    /**
+     * Deletes {@code root} and everything below it, children before parents.
+     */
+    static void delete(Path root) throws IOException {
+        if (!Files.isDirectory(root, LinkOption.NOFOLLOW_LINKS)) {
+            Files.deleteIfExists(root);
+            return;
+        }
+        run(new DeleteTask(root));
+    }
+
+    private static void run(RecursiveAction task) throws IOException {
+        try {
+            ForkJoinPool.commonPool().invoke(task);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Tasks are never serialized; they only live for the duration of run()
+    @SuppressWarnings("serial")
+    private static final class MirrorTask extends RecursiveAction {
+        private final Path source;
+        private final Path target;
+        private final FileTransfer transfer;
+
+        MirrorTask(Path source, Path target, FileTransfer transfer) {
+            this.source = source;
+            this.target = target;
+            this.transfer = transfer;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                Files.createDirectories(target);
+
+                List<ForkJoinTask<?>> subtasks = new ArrayList<>();
+                List<Path> batch = new ArrayList<>();
+
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(source)) {
+                    for (Path child : children) {
+                        Path childTarget = target.resolve(child.getFileName().toString());
+                        if (Files.isSymbolicLink(child)) {
+                            copyLink(child, childTarget);
+                            continue;
+                        }
+                        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            subtasks.add(new MirrorTask(child, childTarget, transfer));
+                            continue;
+                        }
+
+                        batch.add(child);
+                        if (batch.size() == FILES_PER_TASK) {
+                            subtasks.add(new TransferBatch(batch, target, transfer));
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+
+                if (!batch.isEmpty())
+                    subtasks.add(new TransferBatch(batch, target, transfer));
+
+                invokeAll(subtasks);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to copy: " + source, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class TransferBatch extends RecursiveAction {
+        private final List<Path> files;
+        private final Path targetDir;
+        private final FileTransfer transfer;
+
+        TransferBatch(List<Path> files, Path targetDir, FileTransfer transfer) {
+            this.files = files;
+            this.targetDir = targetDir;
+            this.transfer = transfer;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                try {
+                    transfer.apply(file, targetDir.resolve(file.getFileName().toString()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to copy: " + file, e);
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class DeleteTask extends RecursiveAction {
+        private final Path dir;
+
+        DeleteTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected void compute() {
+            try {
+                List<ForkJoinTask<?>> subtasks = new ArrayList<>();
+                List<Path> batch = new ArrayList<>();
+
+                try (DirectoryStream<Path> children = Files.newDirectoryStream(dir)) {
+                    for (Path child : children) {
+                        if (Files.isDirectory(child, LinkOption.NOFOLLOW_LINKS)) {
+                            subtasks.add(new DeleteTask(child));
+                            continue;
+                        }
+
+                        batch.add(child);
+                        if (batch.size() == FILES_PER_TASK) {
+                            subtasks.add(new DeleteBatch(batch));
+                            batch = new ArrayList<>();
+                        }
+                    }
+                }
+
+                if (!batch.isEmpty())
+                    subtasks.add(new DeleteBatch(batch));
+
+                invokeAll(subtasks);
+                Files.delete(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to delete: " + dir, e);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    private static final class DeleteBatch extends RecursiveAction {
+        private final List<Path> files;
+
+        DeleteBatch(List<Path> files) {
+            this.files = files;
+        }
+
+        @Override
+        protected void compute() {
+            for (Path file : files) {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to delete: " + file, e);
+                }
+            }
+        }
+    }
+}
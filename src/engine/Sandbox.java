@@ -8,6 +8,7 @@ import gameplay.CommandListener;
 import gameplay.CommandResult;
 import gameplay.DungeonExecutor;
 import player.PlayerStats;
+import storage.BlobStore;
 import storage.Inventory;
 
 import java.nio.file.Path;
@@ -30,6 +31,8 @@ public class Sandbox implements Loggable {
         this.executor = new DungeonExecutor(this.sandBoxPath, inventoryPath1);
         this.granter = new CommandGranterMiddleware(playerStats);
         this.inventory = new Inventory("inventory", "inventory", inventoryPath);
+        Path sandboxParent = this.sandBoxPath.toAbsolutePath().getParent();
+        this.inventory.useBlobStore(new BlobStore(sandboxParent.resolve("cache").resolve("blobs")));
         this.backupManager = new SandboxBackupManager(this.sandBoxPath, this.inventory);
         executor.useMiddleware(granter);
         executor.addListener(new CommandListener() {
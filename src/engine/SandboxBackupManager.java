@@ -1,17 +1,44 @@
 package engine;
 
 import utilities.Loggable;
+import storage.BlobStore;
 import storage.Inventory;
 
-import java.io.IOException;
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.ByteBuffer;
 import java.nio.file.*;
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 public class SandboxBackupManager implements Loggable {
 
+    private static final int ARCHIVE_BUFFER_SIZE = 64 * 1024;
+    private static final String SNAPSHOT_MARKER = ".snapshot";
+
     private final Path sandBoxPath;
     private final Path cacheDir;
     private final Inventory inventory;
+    private final TrashReaper trashReaper;
+    private final BackupIndex index;
+    private BackupFormat backupFormat = BackupFormat.DIRECTORY;
+    private FlushStrategy flushStrategy = FlushStrategy.DELETE;
+    private int maxGenerations = 3;
+    private long cacheBudgetBytes = 512L * 1024 * 1024;
+    private EvictionPolicy evictionPolicy = EvictionPolicy.LRU;
+    private volatile int lastGeneration = -1;
 
     public enum BackupMode {
         BACKUP_ALL,
@@ -19,12 +46,43 @@ public class SandboxBackupManager implements Loggable {
         BACKUP_SPECIFIC_DIR
     }
 
+    /**
+     * How a backup is laid out on disk, independent of what it covers.
+     * DIRECTORY mirrors the tree file by file; ARCHIVE streams it into a
+     * single compressed zip next to where the directory would have been;
+     * SNAPSHOT mirrors the tree with hard links instead of copies.
+     */
+    public enum BackupFormat {
+        DIRECTORY,
+        ARCHIVE,
+        SNAPSHOT
+    }
+
     public enum FlushMode {
         ALL,
         EXCEPT_INVENTORY,
         SPECIFIC_DIR
     }
 
+    /**
+     * How flushed paths are removed. DELETE walks and deletes them before
+     * returning; TRASH renames them into the cache trash and lets the
+     * {@link TrashReaper} delete them in the background.
+     */
+    public enum FlushStrategy {
+        DELETE,
+        TRASH
+    }
+
+    /**
+     * Which generations go first when the cache exceeds its byte budget:
+     * least recently restored, or least often restored.
+     */
+    public enum EvictionPolicy {
+        LRU,
+        LFU
+    }
+
     public SandboxBackupManager(Path sandboxPath, Inventory inventory) {
         this.sandBoxPath = sandboxPath;
         this.inventory = inventory;
@@ -39,6 +97,10 @@ public class SandboxBackupManager implements Loggable {
 
         try {
             Files.createDirectories(cacheDir);
+            this.trashReaper = new TrashReaper(cacheDir.resolve(".trash"));
+            this.index = new BackupIndex(cacheDir.resolve("backups.idx"));
+            if (!index.exists())
+                rebuildIndex();
         } catch (IOException e) {
             throw new RuntimeException("Failed to initialize cache directory", e);
         }
@@ -46,81 +108,196 @@ public class SandboxBackupManager implements Loggable {
 
     // ---------------- BACKUP ----------------
 
+    public BackupFormat getBackupFormat() {
+        return backupFormat;
+    }
+
+    public void setBackupFormat(BackupFormat backupFormat) {
+        this.backupFormat = backupFormat;
+    }
+
+    public int getMaxGenerations() {
+        return maxGenerations;
+    }
+
+    public void setMaxGenerations(int maxGenerations) {
+        this.maxGenerations = Math.max(1, maxGenerations);
+    }
+
+    public long getCacheBudgetBytes() {
+        return cacheBudgetBytes;
+    }
+
+    public void setCacheBudgetBytes(long cacheBudgetBytes) {
+        this.cacheBudgetBytes = cacheBudgetBytes;
+    }
+
+    public EvictionPolicy getEvictionPolicy() {
+        return evictionPolicy;
+    }
+
+    public void setEvictionPolicy(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
     public boolean backup(BackupMode mode, String identifier) throws IOException {
         return backup(mode, null, identifier);
     }
 
     public boolean backup(BackupMode mode, Path specificDir, String identifier) {
         try {
-            if (!Files.exists(sandBoxPath))
-                throw new IOException("Sandbox root does not exist: " + sandBoxPath);
+            lastGeneration = writeGeneration(mode, specificDir, identifier, backupFormat);
+            deleteDirectoryRecursively(sandBoxPath);
+            collectBlobs();
+            log("Backup completed!");
+            return true;
 
-            Path backupDir = getBackupDir(identifier);
+        } catch (Exception e) {
+            log(e.getMessage());
+            return false;
+        }
+    }
 
-            if (Files.exists(backupDir)) {
-                log("Backup folder exists. Overwriting...");
-                deleteDirectoryRecursively(backupDir);
+    /**
+     * Snapshots the inventory while the game goes on: unlike {@link #backup}
+     * the sandbox is left in place. The snapshot is taken holding the
+     * inventory's lock so it never catches an item half added or removed.
+     *
+     * @return the generation written, or -1 if the snapshot failed
+     */
+    public int checkpoint(String identifier) {
+        try {
+            int generation;
+            synchronized (inventory) {
+                generation = writeGeneration(BackupMode.BACKUP_ONLY_INVENTORY, null, identifier,
+                        BackupFormat.SNAPSHOT);
             }
+            lastGeneration = generation;
+            collectBlobs();
+            log("Checkpoint " + generation + " of " + identifier + " written");
+            return generation;
 
-            log("Creating backup at: " + backupDir.toAbsolutePath());
-            Files.createDirectories(backupDir);
+        } catch (Exception e) {
+            log(LogLevel.WARN, "Checkpoint failed: " + e.getMessage());
+            return -1;
+        }
+    }
 
-            switch (mode) {
+    /**
+     * Generation written by the last successful {@link #backup} or
+     * {@link #checkpoint} in this process, or -1 if there was none.
+     */
+    public int getLastGeneration() {
+        return lastGeneration;
+    }
 
-                case BACKUP_ALL -> {
-                    log("Backing up entire sandbox...");
-                    copyDirectoryRecursively(sandBoxPath, backupDir);
-                }
+    private int writeGeneration(BackupMode mode, Path specificDir, String identifier, BackupFormat format)
+            throws IOException {
+        if (!Files.exists(sandBoxPath))
+            throw new IOException("Sandbox root does not exist: " + sandBoxPath);
 
-                case BACKUP_ONLY_INVENTORY -> {
-                    Path source = sandBoxPath.resolve("inventory");
-                    if (!Files.exists(source))
-                        throw new IOException("Inventory folder missing: " + source);
+        Path source;
+        Path entryRoot; // location of the source inside the backup
 
-                    Path target = backupDir.resolve("inventory");
-                    Files.createDirectories(target);
-                    copyDirectoryRecursively(source, target);
-                }
+        switch (mode) {
 
-                case BACKUP_SPECIFIC_DIR -> {
-                    if (specificDir == null)
-                        throw new IOException("BACKUP_SPECIFIC_DIR requires a path");
+            case BACKUP_ALL -> {
+                log("Backing up entire sandbox...");
+                source = sandBoxPath;
+                entryRoot = Path.of("");
+            }
 
-                    Path src = sandBoxPath.resolve(specificDir).normalize();
-                    if (!Files.exists(src))
-                        throw new IOException("Directory does not exist: " + src);
+            case BACKUP_ONLY_INVENTORY -> {
+                source = sandBoxPath.resolve("inventory");
+                if (!Files.exists(source))
+                    throw new IOException("Inventory folder missing: " + source);
+                entryRoot = Path.of("inventory");
+            }
 
-                    Path dest = backupDir.resolve(src.getFileName());
-                    Files.createDirectories(dest);
-                    copyDirectoryRecursively(src, dest);
-                }
+            case BACKUP_SPECIFIC_DIR -> {
+                if (specificDir == null)
+                    throw new IOException("BACKUP_SPECIFIC_DIR requires a path");
+
+                source = sandBoxPath.resolve(specificDir).normalize();
+                if (!Files.exists(source))
+                    throw new IOException("Directory does not exist: " + source);
+                entryRoot = source.getFileName();
             }
 
-            deleteDirectoryRecursively(sandBoxPath);
-            log("Backup completed!");
-            return true;
+            default -> throw new IOException("Unsupported backup mode: " + mode);
+        }
 
-        } catch (Exception e) {
-            log(e.getMessage());
-            return false;
+        BackupIndex.Entry created = index.create(identifier,
+                generation -> writeBackup(identifier, generation, source, entryRoot, format),
+                maxGenerations, cacheBudgetBytes, evictionPolicy,
+                evicted -> {
+                    log("Evicting backup " + evicted.identifier() + " generation " + evicted.generation());
+                    try {
+                        deleteBackupFiles(evicted.identifier(), evicted.generation());
+                    } catch (IOException e) {
+                        // Still dropped from the index; the orphaned files are not worth failing the backup over
+                        log(LogLevel.WARN, "Failed to delete evicted backup: " + e.getMessage());
+                    }
+                });
+        return created.generation();
+    }
+
+    /**
+     * Writes generation {@code generation} of {@code identifier} in
+     * {@code format}. Runs under the backup index lock.
+     */
+    private BackupIndex.Entry writeBackup(String identifier, int generation, Path source, Path entryRoot,
+                                          BackupFormat format) throws IOException {
+        Path backupDir = getBackupDir(identifier, generation);
+        Path backupArchive = getBackupArchive(identifier, generation);
+
+        // Leftovers of an attempt that died before it was indexed
+        deleteBackupFiles(identifier, generation);
+
+        long bytes;
+        if (format == BackupFormat.ARCHIVE) {
+            log("Creating backup archive at: " + backupArchive.toAbsolutePath());
+            writeArchive(source, entryRoot, backupArchive);
+            bytes = Files.size(backupArchive);
+        } else {
+            log("Creating backup at: " + backupDir.toAbsolutePath());
+            Path target = backupDir.resolve(entryRoot);
+            Files.createDirectories(target);
+
+            if (format == BackupFormat.SNAPSHOT) {
+                bytes = linkDirectoryRecursively(source, target);
+                Files.createFile(backupDir.resolve(SNAPSHOT_MARKER));
+            } else {
+                bytes = copyDirectoryRecursively(source, target);
+            }
         }
+
+        long now = System.currentTimeMillis();
+        return new BackupIndex.Entry(identifier, generation, format, bytes, now, now, 0);
     }
 
     // ---------------- FLUSH ----------------
 
+    public FlushStrategy getFlushStrategy() {
+        return flushStrategy;
+    }
+
+    public void setFlushStrategy(FlushStrategy flushStrategy) {
+        this.flushStrategy = flushStrategy;
+    }
+
     public void flush(FlushMode mode) throws IOException {
         flush(mode, null);
     }
 
     public void flush(FlushMode mode, String specificDirName) throws IOException {
-
         switch (mode) {
 
             case ALL -> {
                 log("Flushing ALL contents...");
                 try (var stream = Files.list(sandBoxPath)) {
                     for (Path p : stream.toList()) {
-                        deleteDirectoryRecursively(p);
+                        discard(p);
                     }
                 }
             }
@@ -131,7 +308,7 @@ public class SandboxBackupManager implements Loggable {
                     for (Path p : stream.toList()) {
                         if (p.getFileName().toString().equals("inventory"))
                             continue;
-                        deleteDirectoryRecursively(p);
+                        discard(p);
                     }
                 }
             }
@@ -144,7 +321,7 @@ public class SandboxBackupManager implements Loggable {
                 if (!Files.exists(target))
                     return;
 
-                deleteDirectoryRecursively(target);
+                discard(target);
                 Files.createDirectories(target);
             }
         }
@@ -152,10 +329,71 @@ public class SandboxBackupManager implements Loggable {
         log("Flush complete!");
     }
 
+    /**
+     * Removes a flushed path according to the current {@link FlushStrategy}.
+     * Protected paths are left alone either way.
+     */
+    private void discard(Path path) throws IOException {
+        if (flushStrategy == FlushStrategy.DELETE || isProtected(path)) {
+            deleteDirectoryRecursively(path);
+            return;
+        }
+
+        try {
+            trashReaper.discard(path);
+        } catch (AtomicMoveNotSupportedException e) {
+            log("Trash is on another filesystem, deleting in place: " + path);
+            deleteDirectoryRecursively(path);
+        }
+    }
+
     // ---------------- LOAD BACKUP ----------------
 
     public void loadBackup(String identifier) throws IOException {
-        Path backupDir = getBackupDir(identifier);
+        loadBackup(identifier, -1);
+    }
+
+    /**
+     * Restores generation {@code generation} of {@code identifier}, the one
+     * the player's save was checkpointed with. Falls back to the latest
+     * generation when it is -1 or no longer in the cache.
+     */
+    public void loadBackup(String identifier, int generation) throws IOException {
+        restoreBackup(identifier, generation);
+        // The inventory that was in the sandbox is gone, and with it its links to shared blobs
+        collectBlobs();
+    }
+
+    private void restoreBackup(String identifier, int generation) throws IOException {
+        BackupIndex.Entry latest = index.latest(identifier);
+        if (latest == null)
+            throw new IOException("No backup recorded for: " + identifier);
+
+        if (generation >= 0 && generation != latest.generation()) {
+            BackupIndex.Entry requested = index.list().stream()
+                    .filter(e -> e.identifier().equals(identifier) && e.generation() == generation)
+                    .findFirst()
+                    .orElse(null);
+            if (requested != null)
+                latest = requested;
+            else
+                log(LogLevel.WARN, "Backup generation " + generation + " of " + identifier
+                        + " is gone, restoring generation " + latest.generation());
+        }
+
+        index.touch(latest);
+        Path backupDir = getBackupDir(identifier, latest.generation());
+
+        if (latest.format() == BackupFormat.ARCHIVE) {
+            if (Files.exists(sandBoxPath))
+                deleteDirectoryRecursively(sandBoxPath);
+
+            Files.createDirectories(sandBoxPath);
+            extractArchive(getBackupArchive(identifier, latest.generation()), sandBoxPath);
+            inventory.reload();
+            log("Backup archive restored to sandbox!");
+            return;
+        }
 
         if (!Files.exists(backupDir))
             throw new IOException("Backup directory does not exist: " + backupDir);
@@ -163,50 +401,275 @@ public class SandboxBackupManager implements Loggable {
         if (Files.exists(sandBoxPath))
             deleteDirectoryRecursively(sandBoxPath);
 
+        if (latest.format() == BackupFormat.SNAPSHOT) {
+            // Restored files share inodes with the snapshot; SnapshotGuard detaches them before any write
+            linkDirectoryRecursively(backupDir, sandBoxPath);
+            Files.deleteIfExists(sandBoxPath.resolve(SNAPSHOT_MARKER));
+            inventory.reload();
+            log("Snapshot restored to sandbox!");
+            return;
+        }
+
         copyDirectoryRecursively(backupDir, sandBoxPath);
+        inventory.reload();
         log("Backup restored to sandbox!");
     }
 
+    public boolean hasBackup(String identifier) throws IOException {
+        return index.latest(identifier) != null;
+    }
+
     // ---------------- UTILS ----------------
 
-    private Path getBackupDir(String identifier) {
-        return cacheDir.resolve(sandBoxPath.getFileName() + "_" + identifier + "_backup");
+    /**
+     * Lets the inventory's {@link BlobStore} delete blobs no inventory refers
+     * to any more. Live references are the current inventory plus the
+     * inventory manifest of every backup generation still in the cache.
+     */
+    private void collectBlobs() {
+        BlobStore blobStore = inventory.getBlobStore();
+        if (blobStore == null)
+            return;
+
+        try {
+            Set<String> live = new HashSet<>(inventory.getBlobHashes());
+            Path manifestEntry = sandBoxPath.toAbsolutePath().normalize()
+                    .relativize(inventory.getManifestPath().toAbsolutePath().normalize());
+
+            for (BackupIndex.Entry entry : index.list()) {
+                if (entry.format() == BackupFormat.ARCHIVE)
+                    live.addAll(blobsInArchive(getBackupArchive(entry.identifier(), entry.generation()), manifestEntry));
+                else
+                    live.addAll(Inventory.blobsInManifest(
+                            getBackupDir(entry.identifier(), entry.generation()).resolve(manifestEntry)));
+            }
+
+            blobStore.collect(live);
+        } catch (IOException e) {
+            log(LogLevel.WARN, "Failed to collect unreferenced blobs: " + e.getMessage());
+        }
     }
 
-    private void copyDirectoryRecursively(Path src, Path dest) throws IOException {
-        Files.walk(src).forEach(source -> {
-            try {
-                Path target = dest.resolve(src.relativize(source));
-                if (Files.isDirectory(source)) {
-                    Files.createDirectories(target);
+    private static Set<String> blobsInArchive(Path archive, Path manifestEntry) throws IOException {
+        if (!Files.exists(archive))
+            return Set.of();
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            ZipEntry entry = zip.getEntry(manifestEntry.toString().replace('\\', '/'));
+            if (entry == null)
+                return Set.of();
+            try (InputStream in = zip.getInputStream(entry)) {
+                return Inventory.blobsInManifest(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        }
+    }
+
+    private String getBackupName(String identifier, int generation) {
+        String name = sandBoxPath.getFileName() + "_" + identifier + "_backup";
+        return generation == 0 ? name : name + "_g" + generation;
+    }
+
+    private Path getBackupDir(String identifier, int generation) {
+        return cacheDir.resolve(getBackupName(identifier, generation));
+    }
+
+    private Path getBackupArchive(String identifier, int generation) {
+        return cacheDir.resolve(getBackupName(identifier, generation) + ".zip");
+    }
+
+    private void deleteBackupFiles(String identifier, int generation) throws IOException {
+        deleteBackupDirectory(getBackupDir(identifier, generation));
+        Files.deleteIfExists(getBackupArchive(identifier, generation));
+    }
+
+    /**
+     * Recreates the index from the top level of the cache directory when it is
+     * missing, e.g. on the first run after upgrading. Backups written before
+     * generations existed are adopted as generation 0. This is the only place
+     * that lists the cache; it runs once and never descends into other backups.
+     */
+    private void rebuildIndex() throws IOException {
+        Pattern name = Pattern.compile(Pattern.quote(sandBoxPath.getFileName() + "_")
+                + "(.+)_backup(?:_g(\\d+))?(\\.zip)?");
+        List<BackupIndex.Entry> found = new ArrayList<>();
+
+        try (var stream = Files.list(cacheDir)) {
+            for (Path p : stream.toList()) {
+                Matcher m = name.matcher(p.getFileName().toString());
+                if (!m.matches())
+                    continue;
+
+                int generation = m.group(2) == null ? 0 : Integer.parseInt(m.group(2));
+                long modified = Files.getLastModifiedTime(p).toMillis();
+
+                BackupFormat format;
+                long bytes;
+                if (m.group(3) != null) {
+                    format = BackupFormat.ARCHIVE;
+                    bytes = Files.size(p);
                 } else {
-                    Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+                    format = Files.exists(p.resolve(SNAPSHOT_MARKER)) ? BackupFormat.SNAPSHOT : BackupFormat.DIRECTORY;
+                    try (var files = Files.walk(p)) {
+                        bytes = files.filter(Files::isRegularFile).mapToLong(f -> f.toFile().length()).sum();
+                    }
+                }
+                found.add(new BackupIndex.Entry(m.group(1), generation, format, bytes, modified, modified, 0));
+            }
+        }
+
+        index.replaceAll(found);
+        log("Rebuilt backup index with " + found.size() + " generation(s)");
+    }
+
+    /**
+     * Streams every file under {@code src} into a zip at {@code archive}, using
+     * {@code entryRoot} as the prefix of each entry name. The archive is written
+     * to a temporary sibling, forced to disk and then moved into place, so a
+     * crash never leaves a truncated archive under the real name.
+     */
+    private void writeArchive(Path src, Path entryRoot, Path archive) throws IOException {
+        Path tmp = archive.resolveSibling(archive.getFileName() + ".tmp");
+        byte[] buffer = new byte[ARCHIVE_BUFFER_SIZE];
+
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+             ZipOutputStream zip = new ZipOutputStream(
+                     new BufferedOutputStream(Channels.newOutputStream(channel), ARCHIVE_BUFFER_SIZE))) {
+
+            zip.setLevel(Deflater.BEST_SPEED);
+
+            try (var stream = Files.walk(src)) {
+                for (Path source : (Iterable<Path>) stream::iterator) {
+                    Path relative = entryRoot.resolve(src.relativize(source));
+                    String name = relative.toString().replace('\\', '/');
+                    if (name.isEmpty())
+                        continue;
+
+                    if (Files.isDirectory(source)) {
+                        zip.putNextEntry(new ZipEntry(name + "/"));
+                        zip.closeEntry();
+                        continue;
+                    }
+
+                    zip.putNextEntry(new ZipEntry(name));
+                    try (InputStream in = Files.newInputStream(source)) {
+                        int read;
+                        while ((read = in.read(buffer)) != -1)
+                            zip.write(buffer, 0, read);
+                    }
+                    zip.closeEntry();
+                }
+            }
+
+            zip.finish();
+            zip.flush();
+            channel.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void extractArchive(Path archive, Path dest) throws IOException {
+        Path root = dest.toAbsolutePath().normalize();
+        byte[] buffer = new byte[ARCHIVE_BUFFER_SIZE];
+
+        try (ZipInputStream zip = new ZipInputStream(
+                new BufferedInputStream(Files.newInputStream(archive), ARCHIVE_BUFFER_SIZE))) {
+
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                Path target = root.resolve(entry.getName()).normalize();
+
+                // Never let a crafted entry name write outside the sandbox
+                if (!target.startsWith(root))
+                    throw new IOException("Archive entry escapes sandbox: " + entry.getName());
+
+                if (entry.isDirectory()) {
+                    Files.createDirectories(target);
+                    continue;
                 }
-            } catch (IOException e) {
-                throw new RuntimeException("Failed to copy: " + source, e);
+
+                Path parent = target.getParent();
+                if (parent != null)
+                    Files.createDirectories(parent);
+
+                try (OutputStream out = Files.newOutputStream(target)) {
+                    int read;
+                    while ((read = zip.read(buffer)) != -1)
+                        out.write(buffer, 0, read);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return total size of the copied files
+     */
+    private long copyDirectoryRecursively(Path src, Path dest) throws IOException {
+        AtomicLong bytes = new AtomicLong();
+        ParallelFileOps.mirror(src, dest, (source, target) -> {
+            Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+            bytes.addAndGet(Files.size(target));
+        });
+        return bytes.get();
+    }
+
+    /**
+     * Mirrors {@code src} into {@code dest} with hard links, so the cost is one
+     * directory entry per file regardless of its size. Files on a filesystem
+     * without hard links (or across devices) fall back to a private copy.
+     *
+     * @return total size of the linked files
+     */
+    private long linkDirectoryRecursively(Path src, Path dest) throws IOException {
+        AtomicLong bytes = new AtomicLong();
+        ParallelFileOps.mirror(src, dest, (source, target) -> {
+            bytes.addAndGet(Files.size(source));
+            Files.deleteIfExists(target);
+            try {
+                Files.createLink(target, source);
+            } catch (UnsupportedOperationException | FileSystemException e) {
+                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
             }
         });
+        return bytes.get();
+    }
+
+    /**
+     * Removes a previous backup. Unlike {@link #deleteDirectoryRecursively(Path)}
+     * this only ever operates inside the cache directory.
+     */
+    private void deleteBackupDirectory(Path backupDir) throws IOException {
+        if (!Files.exists(backupDir))
+            return;
+        if (!backupDir.toRealPath().startsWith(cacheDir.toRealPath()))
+            throw new IOException("Refusing to delete outside cache: " + backupDir);
+
+        ParallelFileOps.delete(backupDir);
     }
 
     private void deleteDirectoryRecursively(Path path) throws IOException {
         if (!Files.exists(path))
             return;
 
-        // Protect inventory root and cache directory
-        if (path.toRealPath().equals(inventory.getBasePath().toRealPath()))
-            return;
-        if (path.toRealPath().startsWith(cacheDir.toRealPath()))
+        if (isProtected(path))
             return;
 
-        Files.walk(path)
-                .sorted(Comparator.reverseOrder())
-                .forEach(p -> {
-                    try {
-                        Files.delete(p);
-                    } catch (IOException e) {
-                        throw new RuntimeException("Failed to delete: " + p, e);
-                    }
-                });
+        ParallelFileOps.delete(path);
+    }
+
+    // Protect inventory root and cache directory
+    private boolean isProtected(Path path) throws IOException {
+        if (!Files.exists(path))
+            return false;
+        if (path.toRealPath().equals(inventory.getBasePath().toRealPath()))
+            return true;
+        return path.toRealPath().startsWith(cacheDir.toRealPath());
     }
 
     private boolean waitForYes() {
@@ -216,15 +679,23 @@ public class SandboxBackupManager implements Loggable {
     }
 
     public boolean confirmLoadBackup(String identifier) throws IOException {
-        Path backupDir = getBackupDir(identifier);
-        if (!Files.exists(backupDir))
+        return confirmLoadBackup(identifier, () -> -1);
+    }
+
+    /**
+     * Like {@link #confirmLoadBackup(String)}, restoring the generation
+     * {@code generation} returns once the player agreed; that is the place to
+     * load the save that names it.
+     */
+    public boolean confirmLoadBackup(String identifier, IntSupplier generation) throws IOException {
+        if (!hasBackup(identifier))
             return false;
 
         IO.print("Your journey was left unfinished. Resume your progress? (yes/no): ");
         if (!waitForYes())
             return false;
 
-        loadBackup(identifier);
+        loadBackup(identifier, generation.getAsInt());
         return true;
     }
 }
@@ -0,0 +1,40 @@
+package engine;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Copy-on-first-write guard for hard-link snapshots.
+ * <p>
+ * A file restored from a {@link SandboxBackupManager.BackupFormat#SNAPSHOT}
+ * backup shares its inode with the snapshot, so writing to it in place would
+ * silently change the snapshot as well. Anything that rewrites an existing
+ * sandbox file calls {@link #beforeWrite(Path)} first; if the file is still
+ * linked elsewhere it is replaced by a private copy before the write lands.
+ */
+public final class SnapshotGuard {
+
+    private SnapshotGuard() {
+    }
+
+    public static void beforeWrite(Path file) throws IOException {
+        if (!Files.isRegularFile(file))
+            return;
+
+        int links;
+        try {
+            links = (Integer) Files.getAttribute(file, "unix:nlink");
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return; // no hard links on this filesystem, nothing can be shared
+        }
+
+        if (links <= 1)
+            return;
+
+        Path detached = file.resolveSibling(file.getFileName() + ".cow");
+        Files.copy(file, detached, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+        Files.move(detached, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
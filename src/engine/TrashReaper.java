@@ -0,0 +1,109 @@
+package engine;
+
+import utilities.Loggable;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Deletes flushed sandbox trees in the background.
+ * <p>
+ * {@link #discard(Path)} renames a tree into the trash directory, which is a
+ * single metadata operation on the same filesystem, and hands it to a
+ * low-priority daemon thread. The thread deletes in short bursts with pauses
+ * in between so it never competes with the game for disk bandwidth. Anything
+ * still sitting in the trash when the reaper starts (a previous session that
+ * exited or crashed mid-delete) is queued up again.
+ */
+public class TrashReaper implements Loggable {
+
+    private static final int DELETES_PER_BURST = 64;
+    private static final long PAUSE_BETWEEN_BURSTS_MS = 5;
+
+    private final Path trashDir;
+    private final BlockingQueue<Path> pending = new LinkedBlockingQueue<>();
+
+    public TrashReaper(Path trashDir) throws IOException {
+        this.trashDir = trashDir;
+        Files.createDirectories(trashDir);
+
+        try (var stream = Files.list(trashDir)) {
+            for (Path leftover : stream.toList()) {
+                log("Queueing leftover trash: " + leftover.getFileName());
+                pending.add(leftover);
+            }
+        }
+
+        Thread worker = new Thread(this::run, "trash-reaper");
+        worker.setDaemon(true);
+        worker.setPriority(Thread.MIN_PRIORITY);
+        worker.start();
+    }
+
+    /**
+     * Atomically moves {@code path} into the trash and schedules its deletion.
+     *
+     * @throws AtomicMoveNotSupportedException if the trash is on another filesystem
+     */
+    public void discard(Path path) throws IOException {
+        Path target = trashDir.resolve(System.nanoTime() + "_" + path.getFileName());
+        Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+        pending.add(target);
+    }
+
+    private void run() {
+        while (true) {
+            Path next;
+            try {
+                next = pending.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            try {
+                delete(next);
+            } catch (IOException e) {
+                log("Failed to reap " + next + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private void delete(Path root) throws IOException {
+        if (!Files.exists(root, LinkOption.NOFOLLOW_LINKS))
+            return;
+
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            private int deletedInBurst = 0;
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                Files.delete(file);
+                throttle();
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult postVisitDirectory(Path dir, IOException exc) throws IOException {
+                if (exc != null)
+                    throw exc;
+                Files.delete(dir);
+                throttle();
+                return FileVisitResult.CONTINUE;
+            }
+
+            private void throttle() {
+                if (++deletedInBurst < DELETES_PER_BURST)
+                    return;
+                deletedInBurst = 0;
+                try {
+                    Thread.sleep(PAUSE_BETWEEN_BURSTS_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+    }
+}
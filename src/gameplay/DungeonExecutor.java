@@ -1,5 +1,7 @@
 package gameplay;
 
+import engine.SnapshotGuard;
+
 import java.io.IOException;
 import java.nio.file.*;
 
@@ -108,6 +110,18 @@ public class DungeonExecutor extends LinuxCommandExecutor {
         String[] parts = input.trim().split("\\s+");
         String cmd = parts[0];
 
+        // touch rewrites files in place (truncating them on Windows); inventory items and
+        // restored snapshot files share their inode with other copies, so detach them first
+        if (cmd.equals("touch")) {
+            for (int i = 1; i < parts.length; i++) {
+                try {
+                    SnapshotGuard.beforeWrite(getCurrentDir().resolve(parts[i]));
+                } catch (IOException | InvalidPathException e) {
+                    System.err.println("touch: could not detach " + parts[i] + ": " + e.getMessage());
+                }
+            }
+        }
+
         if(cmd.equals("done")) {
             CommandContext ctx = new CommandContext();
             ctx.command = "done";
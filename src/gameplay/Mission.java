@@ -12,8 +12,40 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * The objectives of a stage.
+ * <p>
+ * Every element added to a mission reports its transitions (an enemy
+ * defeated, a door unlocked, a shard put in place) through a
+ * {@link ProgressListener}, and the mission keeps a running count of what is
+ * left per kind. Completion checks and remaining counts are therefore plain
+ * reads, however many elements the mission holds.
+ */
 public class Mission {
 
+    /**
+     * Told when a mission element becomes complete, or stops being complete.
+     * Elements only call it when their state actually changes.
+     */
+    public interface ProgressListener {
+        void onProgressChanged(boolean completed);
+    }
+
+    // Number of tracked elements that are not complete yet
+    private static final class Remaining implements ProgressListener {
+        private int count;
+
+        void track(boolean completed) {
+            if (!completed)
+                count++;
+        }
+
+        @Override
+        public void onProgressChanged(boolean completed) {
+            count += completed ? -1 : 1;
+        }
+    }
+
     private final List<Enemy> enemies = new ArrayList<>();
     private final List<HiddenDoor> hiddenDoors = new ArrayList<>();
     private final List<CorrectPlacementValidator> placementValidators = new ArrayList<>();
@@ -21,6 +53,13 @@ public class Mission {
     private final List<Shards> shards = new ArrayList<>();
     private final List<Corrupted> corrupts = new ArrayList<>();
 
+    private final Remaining remainingEnemies = new Remaining();
+    private final Remaining lockedDoors = new Remaining();
+    private final Remaining misplacedValidators = new Remaining();
+    private final Remaining decoysLeft = new Remaining();
+    private final Remaining shardsLeft = new Remaining();
+    private final Remaining corruptsLeft = new Remaining();
+
     private final LinuxCommandExecutor linuxCommandExecutor;
     private final Player player;
 
@@ -31,16 +70,22 @@ public class Mission {
 
     public Mission addDecoys(Decoy item) {
         this.decoys.add(item);
+        decoysLeft.track(item.isDeleted());
+        item.setProgressListener(decoysLeft);
         return this;
     }
 
     public Mission addShards(Shards shards) {
         this.shards.add(shards);
+        shardsLeft.track(shards.isCompleted());
+        shards.setProgressListener(shardsLeft);
         return this;
     }
 
     public Mission addCorrupt(Corrupted corrupted) {
         this.corrupts.add(corrupted);
+        corruptsLeft.track(corrupted.isCompleted());
+        corrupted.setProgressListener(corruptsLeft);
         return this;
     }
 
@@ -56,18 +101,28 @@ public class Mission {
         return this.corrupts;
     }
 
+    public int remainingShards() {
+        return shardsLeft.count;
+    }
+
+    public int remainingDecoys() {
+        return decoysLeft.count;
+    }
+
+    public int remainingCorrupts() {
+        return corruptsLeft.count;
+    }
+
     public boolean shardCompleted() {
-        return shards.isEmpty() || shards.stream().allMatch(Shards::isCorrectDir);
+        return shardsLeft.count == 0;
     }
 
     public boolean decoyCompleted() {
-        return decoys.isEmpty() || decoys.stream().allMatch(Decoy::isDeleted);
+        return decoysLeft.count == 0;
     }
 
     public boolean corruptPurified() {
-        return corrupts.isEmpty() ||
-                corrupts.stream().allMatch(Corrupted::isCorrectName) &&
-                        corrupts.stream().allMatch(Corrupted::isCorrectDir);
+        return corruptsLeft.count == 0;
     }
 
     // ---------------------------------------------------------
@@ -75,6 +130,8 @@ public class Mission {
     // ---------------------------------------------------------
     public Mission addEnemy(Enemy enemy) {
         enemies.add(enemy);
+        remainingEnemies.track(enemy.hasBeenDefeated());
+        enemy.setProgressListener(remainingEnemies);
         return this;
     }
 
@@ -83,6 +140,8 @@ public class Mission {
     // ---------------------------------------------------------
     public Mission addPlacementValidator(CorrectPlacementValidator placementValidator) {
         placementValidators.add(placementValidator);
+        misplacedValidators.track(placementValidator.isCorrectlyPlaced());
+        placementValidator.setProgressListener(misplacedValidators);
         return this;
     }
 
@@ -91,6 +150,8 @@ public class Mission {
     // ---------------------------------------------------------
     public Mission addHiddenDoor(HiddenDoor door) {
         hiddenDoors.add(door);
+        lockedDoors.track(door.hasBeenUnlocked());
+        door.setProgressListener(lockedDoors);
         return this;
     }
 
@@ -118,11 +179,11 @@ public class Mission {
     }
 
     public long remainingEnemies() {
-        return enemies.stream().filter(e -> !e.hasBeenDefeated()).count();
+        return remainingEnemies.count;
     }
 
     public boolean allEnemiesDefeated() {
-        return enemies.stream().allMatch(Enemy::hasBeenDefeated);
+        return remainingEnemies.count == 0;
     }
 
     public Enemy getEnemyById(String id) {
@@ -141,11 +202,11 @@ public class Mission {
     }
 
     public long remainingLockedDoors() {
-        return hiddenDoors.stream().filter(d -> !d.hasBeenUnlocked()).count();
+        return lockedDoors.count;
     }
 
     public boolean allDoorsUnlocked() {
-        return hiddenDoors.stream().allMatch(HiddenDoor::hasBeenUnlocked);
+        return lockedDoors.count == 0;
     }
 
     public List<HiddenDoor> getHiddenDoors() {
@@ -160,11 +221,11 @@ public class Mission {
     }
 
     public long remainingIncorrectPlacementValidators() {
-        return placementValidators.stream().filter(d -> !d.isCorrectlyPlaced()).count();
+        return misplacedValidators.count;
     }
 
     public boolean allCorrectPlacementValidators() {
-        return placementValidators.stream().allMatch(CorrectPlacementValidator::isCorrectlyPlaced);
+        return misplacedValidators.count == 0;
     }
 
     public List<CorrectPlacementValidator> getPlacementValidators() {
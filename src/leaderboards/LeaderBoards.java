@@ -1,29 +1,43 @@
 package leaderboards;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
 
 public class LeaderBoards {
-    private static final Path FILE_PATH = Paths.get("db/leaderboards.txt");
+    private static final Path LEGACY_CSV_PATH = Paths.get("db/leaderboards.txt");
+    private static final Path FILE_PATH = Paths.get("db/leaderboards.bin");
+    private static final Path NAMES_PATH = Paths.get("db/leaderboards.names");
+    private static final Path AGGREGATES_PATH = Paths.get("db/leaderboards.agg");
+    private static final int PAGE_SIZE = 20;
+
+    private static final LeaderboardLog LOG = new LeaderboardLog(FILE_PATH, NAMES_PATH);
+    private static final LeaderboardIndex INDEX = new LeaderboardIndex(LOG);
+    private static final LeaderboardAppender APPENDER = new LeaderboardAppender(LOG);
+    private static final LeaderboardAggregates AGGREGATES = new LeaderboardAggregates(AGGREGATES_PATH);
 
     static {
         try {
             Files.createDirectories(FILE_PATH.getParent());
-
-            if (Files.notExists(FILE_PATH)) {
-                Files.createFile(FILE_PATH);
-            }
+            LOG.setAppendListener(AGGREGATES);
+            LOG.initialize(LEGACY_CSV_PATH);
         } catch (IOException e) {
             System.err.println("Failed to initialize leaderboard storage: " + e.getMessage());
         }
     }
 
     public static void retrieveLeaderBoardData() {
+        retrieveLeaderBoardPage(0);
+    }
+
+    /**
+     * Prints one page of the ranking of each player's best run, best first.
+     */
+    public static void retrieveLeaderBoardPage(int page) {
         if (!Files.exists(FILE_PATH)) {
             System.err.println("File does not exist: " + FILE_PATH);
             return;
@@ -35,32 +49,78 @@ public class LeaderBoards {
         }
 
         IO.println("\n\n============ LEADERBOARD DATA ============\n\n");
-        IO.println("Name      Health      Level      Date and Time");
-
-        try (BufferedReader reader = Files.newBufferedReader(FILE_PATH)) {
-            String line;
-            boolean hasContent = false;
-
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) { // Skip empty lines
-                    String[] stringArr = line.split(",");
-                    line = String.format("\n%-10s %-11s %-10s %s\n\n\n\n",
-                            stringArr[0], stringArr[1], stringArr[2], stringArr[3]);
-                    System.out.println(line);
-                    hasContent = true;
-                }
-            }
+        IO.println("#     Name      Health      Level      Date and Time");
+
+        int total = INDEX.size();
+        int from = Math.max(0, page) * PAGE_SIZE;
+        List<LeaderboardEntry> entries = INDEX.range(from, PAGE_SIZE);
+
+        for (int i = 0; i < entries.size(); i++) {
+            LeaderboardEntry entry = entries.get(i);
+            System.out.println(String.format("\n%-5d %-10s %-11s %-10s %s\n\n\n\n",
+                    from + i + 1, entry.name(), entry.health(), entry.level(), entry.dateTime()));
+        }
+
+        if (total == 0)
+            System.out.println("\n\nNo leaderboard data found!\n\n\n");
+        else
+            System.out.println("\nShowing " + (entries.isEmpty() ? 0 : from + 1) + "-" + (from + entries.size())
+                    + " of " + total
+                    + "\n=========================================\n\nClear leaderboards? [y/n]: ");
+    }
+
+    /**
+     * Returns the best runs of the top {@code n} players, best first.
+     */
+    public static List<LeaderboardEntry> getTopEntries(int n) {
+        return INDEX.range(0, n);
+    }
+
+    /**
+     * Returns the 1-based rank of the player's best run, or -1 if they have none.
+     */
+    public static int getRank(String name) {
+        return INDEX.rankOf(name.trim());
+    }
+
+    /**
+     * Returns the best runs at {@code level} ({@link LeaderboardAggregates#ANY_LEVEL}
+     * for all levels) in the current day or week, best first.
+     */
+    public static List<LeaderboardEntry> getTopInWindow(LeaderboardAggregates.Window window, int level) {
+        refreshAggregates();
+        return AGGREGATES.top(window, level, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns how many runs at {@code level} ({@link LeaderboardAggregates#ANY_LEVEL}
+     * for all levels) were recorded in the current day or week.
+     */
+    public static int getCountInWindow(LeaderboardAggregates.Window window, int level) {
+        refreshAggregates();
+        return AGGREGATES.count(window, level, System.currentTimeMillis());
+    }
+
+    /**
+     * Returns the all-time number of runs per level reached, by level.
+     */
+    public static Map<Integer, Long> getCompletionCounts() {
+        refreshAggregates();
+        return AGGREGATES.runsPerLevel();
+    }
 
-            if (!hasContent)
-                System.out.println("\n\nNo leaderboard data found!\n\n\n");
-            else
-                System.out.println("\n=========================================\n\nClear leaderboards? [y/n]: ");
+    private static void refreshAggregates() {
+        try {
+            LOG.locked(true, () -> {
+                AGGREGATES.reloadIfChanged();
+                return null;
+            });
         } catch (IOException e) {
-            System.err.println("Error reading file: " + e.getMessage());
+            System.err.println("Error reading leaderboard aggregates: " + e.getMessage());
         }
     }
 
-    private static void addLeaderboardEntry(String name, int health, int level, String dateTime) {
+    private static void addLeaderboardEntry(String name, int health, int level, long epochMillis) {
         if (name == null || name.trim().isEmpty()) {
             System.err.println("Error: Name cannot be empty");
             return;
@@ -76,7 +136,7 @@ public class LeaderBoards {
             return;
         }
 
-        if (dateTime == null || dateTime.trim().isEmpty()) {
+        if (epochMillis <= 0) {
             System.err.println("Error: Date and time cannot be empty");
             return;
         }
@@ -88,35 +148,28 @@ public class LeaderBoards {
             return;
         }
 
-        String entry = String.format("%s,%d,%d,%s",
-                name.trim(),
-                health,
-                level,
-                dateTime.trim()) + System.lineSeparator();
-
-        try (BufferedWriter writer = Files.newBufferedWriter(
-                FILE_PATH,
-                StandardOpenOption.CREATE,
-                StandardOpenOption.APPEND)) {
-
-            writer.write(entry);
+        try {
+            // Wait for the batch to be synced; the game may exit right after this
+            APPENDER.submit(new LeaderboardEntry(name.trim(), health, level, epochMillis)).join();
             System.out.println("Leaderboard entry added successfully!");
-
-        } catch (IOException e) {
-            System.err.println("Error writing to file: " + e.getMessage());
+        } catch (CompletionException e) {
+            System.err.println("Error writing to file: " + e.getCause().getMessage());
+            return;
         }
 
+        INDEX.refresh();
+        INDEX.maybeCompact();
     }
 
     public static void addLeaderboardEntry(String name, int health, int level) {
-        String currentDateTime = java.time.LocalDateTime.now().toString();
-        addLeaderboardEntry(name, health, level, currentDateTime);
+        addLeaderboardEntry(name, health, level, System.currentTimeMillis());
     }
 
     public static void clearLeaderboardData() {
         try {
-            if (Files.exists(FILE_PATH)) {
-                Files.delete(FILE_PATH);
+            if (INDEX.size() > 0) {
+                LOG.clear();
+                INDEX.clear();
                 System.out.println("\n\n\nLeaderboard data cleared successfully!\n\n\n");
             } else {
                 System.out.println("\n\n\nNo leaderboard data to clear.\n\n\n");
@@ -0,0 +1,327 @@
+package leaderboards;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+
+/**
+ * Running totals over the leaderboard, kept up to date as runs are appended
+ * so operator queries never scan the log.
+ * <p>
+ * Holds the all-time number of runs per level, and for every day and week a
+ * bucket per level (plus one for all levels together) with its run count and
+ * its best {@value #TOP_K} runs. Buckets older than the retention window are
+ * dropped.
+ * <p>
+ * The {@link LeaderboardLog} hands every batch over under its exclusive lock,
+ * and the batch's runs are appended to a delta file next to the aggregates
+ * file. Once the deltas pass {@value #FOLD_BYTES} bytes the aggregates are
+ * rewritten with a new save counter, which also marks the deltas as folded in:
+ * the delta file starts with the counter of the save it applies to and is
+ * ignored, then started over, once that is out of date. Other processes
+ * re-read the aggregates when the counter changes and replay deltas they have
+ * not seen yet.
+ * <pre>
+ * deltas: [u64 save counter][runs: UTF name, u32 health, u32 level, u64 epoch millis]
+ * </pre>
+ */
+public final class LeaderboardAggregates implements LeaderboardLog.AppendListener {
+
+    public enum Window {
+        DAY, WEEK
+    }
+
+    /** Level value meaning "runs at any level"; runs are never recorded with a negative level. */
+    public static final int ANY_LEVEL = -1;
+
+    private static final int TOP_K = 10;
+    private static final int DAYS_RETAINED = 35;
+    private static final int WEEKS_RETAINED = 12;
+    private static final int MAGIC = 0x54444C41; // "TDLA"
+    private static final short VERSION = 1;
+    private static final int DELTA_HEADER_SIZE = Long.BYTES;
+    private static final int FOLD_BYTES = 64 * 1024;
+
+    private record BucketKey(Window window, long startDay, int level) {
+    }
+
+    private static final class Bucket {
+        int count;
+        final List<LeaderboardEntry> top = new ArrayList<>(TOP_K);
+
+        void add(LeaderboardEntry entry) {
+            count++;
+            int at = Collections.binarySearch(top, entry, LeaderboardEntry.RANKING);
+            if (at < 0)
+                at = -at - 1;
+            if (at >= TOP_K)
+                return;
+            top.add(at, entry);
+            if (top.size() > TOP_K)
+                top.removeLast();
+        }
+    }
+
+    private final Path file;
+    private final Path deltaFile;
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final Map<BucketKey, Bucket> buckets = new HashMap<>();
+    private final Map<Integer, Long> runsPerLevel = new TreeMap<>();
+    private long loadedSequence = -1;
+    private long deltaBytesRead;
+
+    LeaderboardAggregates(Path file) {
+        this.file = file;
+        this.deltaFile = file.resolveSibling(file.getFileName() + ".delta");
+    }
+
+    /* ==========================
+       QUERIES
+       ========================== */
+
+    /**
+     * Returns the best runs at {@code level} (or {@link #ANY_LEVEL}) in the
+     * day or week containing {@code atMillis}, best first.
+     */
+    synchronized List<LeaderboardEntry> top(Window window, int level, long atMillis) {
+        Bucket bucket = buckets.get(new BucketKey(window, windowStart(window, atMillis), level));
+        return bucket == null ? List.of() : List.copyOf(bucket.top);
+    }
+
+    synchronized int count(Window window, int level, long atMillis) {
+        Bucket bucket = buckets.get(new BucketKey(window, windowStart(window, atMillis), level));
+        return bucket == null ? 0 : bucket.count;
+    }
+
+    /** All-time number of runs per level reached. */
+    synchronized Map<Integer, Long> runsPerLevel() {
+        return Collections.unmodifiableMap(new TreeMap<>(runsPerLevel));
+    }
+
+    /* ==========================
+       UPDATES (under the log's exclusive lock)
+       ========================== */
+
+    @Override
+    public synchronized void onAppend(List<LeaderboardEntry> batch) throws IOException {
+        reloadIfChanged();
+
+        ByteArrayOutputStream runs = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(runs);
+        long newest = Long.MIN_VALUE;
+        for (LeaderboardEntry entry : batch) {
+            out.writeUTF(entry.name());
+            out.writeInt(entry.health());
+            out.writeInt(entry.level());
+            out.writeLong(entry.epochMillis());
+            add(entry);
+            newest = Math.max(newest, entry.epochMillis());
+        }
+        prune(newest);
+
+        appendDeltas(runs.toByteArray());
+        if (deltaBytesRead >= FOLD_BYTES)
+            save();
+    }
+
+    @Override
+    public synchronized void onClear() throws IOException {
+        reloadIfChanged();
+        buckets.clear();
+        runsPerLevel.clear();
+        save();
+    }
+
+    /**
+     * Picks up aggregates written by another process; call it holding at
+     * least the log's shared lock.
+     */
+    synchronized void reloadIfChanged() throws IOException {
+        loadSaved();
+        replayDeltas();
+    }
+
+    private void loadSaved() throws IOException {
+        if (!Files.exists(file)) {
+            if (loadedSequence != 0) {
+                buckets.clear();
+                runsPerLevel.clear();
+                loadedSequence = 0;
+                deltaBytesRead = 0;
+            }
+            return;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC || in.readShort() != VERSION)
+                throw new IOException("Unrecognized leaderboard aggregates");
+            long sequence = in.readLong();
+            if (sequence == loadedSequence)
+                return;
+
+            buckets.clear();
+            runsPerLevel.clear();
+            loadedSequence = -1;
+            deltaBytesRead = 0;
+
+            int levels = in.readInt();
+            for (int i = 0; i < levels; i++)
+                runsPerLevel.put(in.readInt(), in.readLong());
+
+            int bucketCount = in.readInt();
+            Window[] windows = Window.values();
+            for (int i = 0; i < bucketCount; i++) {
+                BucketKey key = new BucketKey(windows[in.readUnsignedByte()], in.readLong(), in.readInt());
+                Bucket bucket = new Bucket();
+                bucket.count = in.readInt();
+                int topSize = in.readUnsignedByte();
+                for (int j = 0; j < topSize; j++)
+                    bucket.top.add(new LeaderboardEntry(in.readUTF(), in.readInt(), in.readInt(), in.readLong()));
+                buckets.put(key, bucket);
+            }
+            loadedSequence = sequence;
+        }
+    }
+
+    /**
+     * Applies the runs appended to the delta file since the last call, if it
+     * belongs to the loaded save. A run cut short by a crash is left for
+     * {@link #appendDeltas} to truncate.
+     */
+    private void replayDeltas() throws IOException {
+        if (!Files.exists(deltaFile))
+            return;
+
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (deltaBytesRead == 0) {
+                if (size < DELTA_HEADER_SIZE)
+                    return;
+                ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_SIZE);
+                while (header.hasRemaining())
+                    channel.read(header, header.position());
+                // Left over from before the last save, which already holds them
+                if (header.getLong(0) != loadedSequence)
+                    return;
+                deltaBytesRead = DELTA_HEADER_SIZE;
+            }
+            if (size <= deltaBytesRead)
+                return;
+
+            byte[] tail = new byte[(int) (size - deltaBytesRead)];
+            channel.map(FileChannel.MapMode.READ_ONLY, deltaBytesRead, tail.length).get(tail);
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(tail));
+            int consumed = 0;
+            long newest = Long.MIN_VALUE;
+            while (tail.length - consumed >= Short.BYTES) {
+                int length = Short.BYTES + (((tail[consumed] & 0xFF) << 8) | (tail[consumed + 1] & 0xFF))
+                        + Integer.BYTES * 2 + Long.BYTES;
+                if (tail.length - consumed < length)
+                    break;
+
+                LeaderboardEntry entry = new LeaderboardEntry(in.readUTF(), in.readInt(), in.readInt(), in.readLong());
+                add(entry);
+                newest = Math.max(newest, entry.epochMillis());
+                consumed += length;
+            }
+            deltaBytesRead += consumed;
+            prune(newest);
+        }
+    }
+
+    /**
+     * Appends encoded runs to the delta file, starting it over if it belongs
+     * to an earlier save and cutting off a run a crash left unfinished.
+     */
+    private void appendDeltas(byte[] runs) throws IOException {
+        try (FileChannel channel = FileChannel.open(deltaFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (deltaBytesRead == 0) {
+                channel.truncate(0);
+                ByteBuffer header = ByteBuffer.allocate(DELTA_HEADER_SIZE).putLong(0, loadedSequence);
+                while (header.hasRemaining())
+                    channel.write(header, header.position());
+                deltaBytesRead = DELTA_HEADER_SIZE;
+            } else if (channel.size() > deltaBytesRead) {
+                channel.truncate(deltaBytesRead);
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(runs);
+            while (buffer.hasRemaining())
+                channel.write(buffer, deltaBytesRead + buffer.position());
+            channel.force(false);
+            deltaBytesRead += runs.length;
+        }
+    }
+
+    private void add(LeaderboardEntry entry) {
+        runsPerLevel.merge(entry.level(), 1L, Long::sum);
+        for (Window window : Window.values()) {
+            long start = windowStart(window, entry.epochMillis());
+            buckets.computeIfAbsent(new BucketKey(window, start, ANY_LEVEL), k -> new Bucket()).add(entry);
+            buckets.computeIfAbsent(new BucketKey(window, start, entry.level()), k -> new Bucket()).add(entry);
+        }
+    }
+
+    private void prune(long newestMillis) {
+        if (newestMillis == Long.MIN_VALUE)
+            return;
+
+        long oldestDay = windowStart(Window.DAY, newestMillis) - DAYS_RETAINED;
+        long oldestWeek = windowStart(Window.WEEK, newestMillis) - 7L * WEEKS_RETAINED;
+        buckets.keySet().removeIf(key -> key.startDay() < (key.window() == Window.DAY ? oldestDay : oldestWeek));
+    }
+
+    private void save() throws IOException {
+        long sequence = loadedSequence + 1;
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeLong(sequence);
+
+            out.writeInt(runsPerLevel.size());
+            for (var entry : runsPerLevel.entrySet()) {
+                out.writeInt(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+
+            out.writeInt(buckets.size());
+            for (var entry : buckets.entrySet()) {
+                BucketKey key = entry.getKey();
+                Bucket bucket = entry.getValue();
+                out.writeByte(key.window().ordinal());
+                out.writeLong(key.startDay());
+                out.writeInt(key.level());
+                out.writeInt(bucket.count);
+                out.writeByte(bucket.top.size());
+                for (LeaderboardEntry run : bucket.top) {
+                    out.writeUTF(run.name());
+                    out.writeInt(run.health());
+                    out.writeInt(run.level());
+                    out.writeLong(run.epochMillis());
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        loadedSequence = sequence;
+        // The deltas are in the save now; the next append starts the file over
+        deltaBytesRead = 0;
+    }
+
+    /** Epoch day on which the day or (Monday-based) week containing {@code millis} starts. */
+    private long windowStart(Window window, long millis) {
+        LocalDate day = LocalDate.ofInstant(Instant.ofEpochMilli(millis), zone);
+        if (window == Window.WEEK)
+            day = day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return day.toEpochDay();
+    }
+}
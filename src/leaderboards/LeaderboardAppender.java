@@ -0,0 +1,68 @@
+package leaderboards;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Single writer for the {@link LeaderboardLog}.
+ * <p>
+ * Callers enqueue runs and get a future back. A daemon thread takes whatever
+ * has queued up since its last write (up to {@value #MAX_BATCH}) and appends
+ * it as one batch, so concurrent submitters share one lock acquisition and
+ * one sync instead of paying for them each.
+ */
+final class LeaderboardAppender {
+
+    private static final int MAX_BATCH = 256;
+
+    private record Pending(LeaderboardEntry entry, CompletableFuture<Void> written) {
+    }
+
+    private final LeaderboardLog log;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    LeaderboardAppender(LeaderboardLog log) {
+        this.log = log;
+
+        Thread worker = new Thread(this::run, "leaderboard-appender");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Queues {@code entry}; the future completes once it is synced to disk.
+     */
+    CompletableFuture<Void> submit(LeaderboardEntry entry) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        queue.add(new Pending(entry, written));
+        return written;
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, MAX_BATCH - 1);
+
+            List<LeaderboardEntry> entries = new ArrayList<>(batch.size());
+            for (Pending pending : batch)
+                entries.add(pending.entry());
+
+            try {
+                log.append(entries);
+                batch.forEach(pending -> pending.written().complete(null));
+            } catch (IOException | RuntimeException e) {
+                batch.forEach(pending -> pending.written().completeExceptionally(e));
+            }
+            batch.clear();
+        }
+    }
+}
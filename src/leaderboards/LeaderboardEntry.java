@@ -0,0 +1,23 @@
+package leaderboards;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Comparator;
+
+/**
+ * One finished run on the leaderboard.
+ */
+public record LeaderboardEntry(String name, int health, int level, long epochMillis) {
+
+    /** Higher level first, then more health left, then whoever got there first. */
+    public static final Comparator<LeaderboardEntry> RANKING = Comparator
+            .comparingInt(LeaderboardEntry::level).reversed()
+            .thenComparing(Comparator.comparingInt(LeaderboardEntry::health).reversed())
+            .thenComparingLong(LeaderboardEntry::epochMillis)
+            .thenComparing(LeaderboardEntry::name);
+
+    public LocalDateTime dateTime() {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
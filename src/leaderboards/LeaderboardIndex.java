@@ -0,0 +1,130 @@
+package leaderboards;
+
+import utilities.Loggable;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory ranking of each player's best run in the {@link LeaderboardLog}.
+ * <p>
+ * Entries live in a {@link RankedIndex} ordered by {@link LeaderboardEntry#RANKING},
+ * so a page or a player's rank costs O(log n) instead of a pass over the log.
+ * A run that beats the player's best replaces it; any other run is only kept
+ * in the log until the next compaction, so the view is the same before and
+ * after one.
+ * {@link #refresh()} reads only the records appended since the last call,
+ * which also picks up entries written by other game processes; when the log's
+ * generation changes it was compacted or cleared and is read again from the
+ * start. Compaction keeps the log at one entry per player.
+ */
+final class LeaderboardIndex implements Loggable {
+
+    private static final int READ_BATCH = 4096;
+    private static final int COMPACT_MIN_RECORDS = 128;
+
+    private final LeaderboardLog log;
+    private final RankedIndex<LeaderboardEntry> ranked = new RankedIndex<>(LeaderboardEntry.RANKING);
+    private final Map<String, LeaderboardEntry> bestByPlayer = new HashMap<>();
+    private int generation = -1;
+    private long coveredRecords;
+
+    LeaderboardIndex(LeaderboardLog log) {
+        this.log = log;
+    }
+
+    synchronized int size() {
+        refresh();
+        return ranked.size();
+    }
+
+    synchronized List<LeaderboardEntry> range(int from, int count) {
+        refresh();
+        return ranked.range(from, count);
+    }
+
+    /**
+     * Returns the 1-based rank of the player's best run, or -1 if they have none.
+     */
+    synchronized int rankOf(String name) {
+        refresh();
+        LeaderboardEntry best = bestByPlayer.get(name);
+        return best == null ? -1 : ranked.rank(best) + 1;
+    }
+
+    synchronized void clear() {
+        reset();
+    }
+
+    /**
+     * Compacts the log once most of it is runs superseded by a better one
+     * from the same player.
+     */
+    synchronized void maybeCompact() {
+        try {
+            long dropped = log.locked(false, () -> {
+                long records = log.recordCount();
+                if (records < COMPACT_MIN_RECORDS || records <= 2L * bestByPlayer.size())
+                    return 0L;
+                return log.compact();
+            });
+            if (dropped == 0)
+                return;
+
+            reset();
+            refresh();
+            log("Leaderboard compacted, " + dropped + " superseded entries dropped");
+        } catch (IOException e) {
+            System.err.println("Error compacting leaderboard: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Indexes whatever was appended to the log since the last call.
+     */
+    synchronized void refresh() {
+        try {
+            log.locked(true, () -> {
+                int current = log.generation();
+                long records = log.recordCount();
+                // A new generation, or a log shorter than what we have seen, was compacted or recreated
+                if (current != generation || records < coveredRecords) {
+                    reset();
+                    generation = current;
+                }
+
+                while (coveredRecords < records) {
+                    List<LeaderboardEntry> batch = log.read(coveredRecords,
+                            (int) Math.min(READ_BATCH, records - coveredRecords));
+                    if (batch.isEmpty())
+                        break;
+                    batch.forEach(this::index);
+                    coveredRecords += batch.size();
+                }
+                return null;
+            });
+        } catch (IOException e) {
+            System.err.println("Error indexing leaderboard: " + e.getMessage());
+        }
+    }
+
+    private void index(LeaderboardEntry entry) {
+        LeaderboardEntry best = bestByPlayer.get(entry.name());
+        if (best != null) {
+            if (LeaderboardEntry.RANKING.compare(entry, best) >= 0)
+                return;
+            ranked.remove(best);
+        }
+        bestByPlayer.put(entry.name(), entry);
+        ranked.add(entry);
+    }
+
+    private void reset() {
+        ranked.clear();
+        bestByPlayer.clear();
+        generation = -1;
+        coveredRecords = 0;
+    }
+}
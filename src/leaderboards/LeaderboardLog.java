@@ -0,0 +1,387 @@
+package leaderboards;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+/**
+ * Binary leaderboard log with fixed-width records.
+ * <pre>
+ * header: ["TDLB"][u16 version][u16 unused][u32 generation]
+ * record: [u32 name id][u32 health][u32 level][u64 epoch millis]
+ * </pre>
+ * Player names are interned in a side file of {@code writeUTF} strings whose
+ * position is the name id, so records stay {@value #RECORD_SIZE} bytes and
+ * record {@code i} sits at a known offset. Reads map just the requested range.
+ * <p>
+ * {@link #compact()} rewrites the log with only each player's best run, in
+ * ranking order, and bumps the generation so readers know offsets they
+ * remember no longer apply.
+ * <p>
+ * Several game processes may share the log. Every operation runs under a
+ * {@link FileLock} on a lock file next to it: exclusive for writers, shared
+ * for readers. Methods that do not take the lock themselves must be called
+ * from inside {@link #locked(boolean, LockedAction)}.
+ */
+final class LeaderboardLog {
+
+    static final int RECORD_SIZE = Integer.BYTES * 3 + Long.BYTES;
+    private static final int MAGIC = 0x54444C42; // "TDLB"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 12;
+
+    @FunctionalInterface
+    interface LockedAction<T> {
+        T run() throws IOException;
+    }
+
+    /** Told about every run that enters the log, while the exclusive lock is still held. */
+    interface AppendListener {
+        void onAppend(List<LeaderboardEntry> batch) throws IOException;
+
+        void onClear() throws IOException;
+    }
+
+    private final Path logFile;
+    private final Path namesFile;
+    private final Path lockFile;
+    private FileLock held;
+    private AppendListener listener;
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> nameIds = new HashMap<>();
+    private long namesBytesRead;
+
+    LeaderboardLog(Path logFile, Path namesFile) {
+        this.logFile = logFile;
+        this.namesFile = namesFile;
+        this.lockFile = logFile.resolveSibling(logFile.getFileName() + ".lock");
+    }
+
+    synchronized void setAppendListener(AppendListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Runs {@code action} holding the cross-process lock. Nested calls from
+     * the same thread reuse the lock already held.
+     */
+    synchronized <T> T locked(boolean shared, LockedAction<T> action) throws IOException {
+        if (held != null) {
+            if (held.isShared() && !shared)
+                throw new IllegalStateException("Cannot upgrade a shared leaderboard lock");
+            return action.run();
+        }
+
+        Files.createDirectories(lockFile.toAbsolutePath().getParent());
+        try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            held = channel.lock(0, Long.MAX_VALUE, shared);
+            try {
+                return action.run();
+            } finally {
+                held.release();
+                held = null;
+            }
+        }
+    }
+
+    /**
+     * Creates an empty log if there is none, importing {@code legacyCsv} into
+     * it once if that exists. The CSV is renamed afterwards so it is not
+     * imported again.
+     */
+    synchronized void initialize(Path legacyCsv) throws IOException {
+        locked(false, () -> {
+            initializeLocked(legacyCsv);
+            return null;
+        });
+    }
+
+    private void initializeLocked(Path legacyCsv) throws IOException {
+        // Another process may have created it while we waited for the lock
+        if (Files.exists(logFile))
+            return;
+
+        List<LeaderboardEntry> imported = new ArrayList<>();
+        if (legacyCsv != null && Files.exists(legacyCsv)) {
+            try (BufferedReader reader = Files.newBufferedReader(legacyCsv)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    LeaderboardEntry entry = parseCsvLine(line);
+                    if (entry != null)
+                        imported.add(entry);
+                }
+            }
+        }
+
+        // Names left over from a log that was removed by hand keep their ids; another process may still use them
+        writeLog(imported, 0);
+        notifyAppend(imported);
+
+        if (legacyCsv != null && Files.exists(legacyCsv)) {
+            Files.move(legacyCsv, legacyCsv.resolveSibling(legacyCsv.getFileName() + ".imported"),
+                    StandardCopyOption.REPLACE_EXISTING);
+            System.out.println("Imported " + imported.size() + " leaderboard entries into " + logFile);
+        }
+    }
+
+    /**
+     * Appends a batch of runs under one exclusive lock: new names in one
+     * write, the records in another, and a single sync of each file.
+     */
+    synchronized void append(List<LeaderboardEntry> batch) throws IOException {
+        if (batch.isEmpty())
+            return;
+
+        locked(false, () -> {
+            initializeLocked(null);
+
+            ByteArrayOutputStream newNames = new ByteArrayOutputStream();
+            ByteBuffer records = ByteBuffer.allocate(batch.size() * RECORD_SIZE);
+            for (LeaderboardEntry entry : batch) {
+                records.putInt(intern(entry.name(), newNames)).putInt(entry.health())
+                        .putInt(entry.level()).putLong(entry.epochMillis());
+            }
+
+            appendNames(newNames);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                records.flip();
+                while (records.hasRemaining())
+                    channel.write(records);
+                channel.force(false);
+            }
+            notifyAppend(batch);
+            return null;
+        });
+    }
+
+    private void notifyAppend(List<LeaderboardEntry> batch) {
+        if (listener == null || batch.isEmpty())
+            return;
+        try {
+            listener.onAppend(batch);
+        } catch (IOException e) {
+            System.err.println("Error updating leaderboard aggregates: " + e.getMessage());
+        }
+    }
+
+    int generation() throws IOException {
+        if (!Files.exists(logFile))
+            return -1;
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0)
+                    throw new EOFException("Truncated leaderboard header");
+            }
+            header.flip();
+            if (header.getInt() != MAGIC || header.getShort() != VERSION)
+                throw new IOException("Unrecognized leaderboard log");
+            header.getShort();
+            return header.getInt();
+        }
+    }
+
+    /** Number of complete records; a record cut short by a crash is not counted. */
+    long recordCount() throws IOException {
+        if (!Files.exists(logFile))
+            return 0;
+        return Math.max(0, (Files.size(logFile) - HEADER_SIZE) / RECORD_SIZE);
+    }
+
+    /**
+     * Reads up to {@code count} records starting at record {@code from}.
+     */
+    List<LeaderboardEntry> read(long from, int count) throws IOException {
+        long available = recordCount() - from;
+        int n = (int) Math.max(0, Math.min(count, available));
+        List<LeaderboardEntry> entries = new ArrayList<>(n);
+        if (n == 0)
+            return entries;
+
+        try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.READ)) {
+            MappedByteBuffer page = channel.map(FileChannel.MapMode.READ_ONLY,
+                    HEADER_SIZE + from * RECORD_SIZE, (long) n * RECORD_SIZE);
+            for (int i = 0; i < n; i++) {
+                int nameId = page.getInt();
+                entries.add(new LeaderboardEntry(name(nameId), page.getInt(), page.getInt(), page.getLong()));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Rewrites the log keeping only the best run of every player, in ranking
+     * order. Returns the number of records dropped. The names file is left as
+     * is since every player still has an entry.
+     */
+    long compact() throws IOException {
+        if (!Files.exists(logFile))
+            return 0;
+
+        int generation = generation();
+        List<LeaderboardEntry> all = read(0, (int) recordCount());
+        Map<String, LeaderboardEntry> best = new HashMap<>();
+        for (LeaderboardEntry entry : all)
+            best.merge(entry.name(), entry,
+                    (current, candidate) -> LeaderboardEntry.RANKING.compare(candidate, current) < 0 ? candidate : current);
+
+        List<LeaderboardEntry> kept = new ArrayList<>(best.values());
+        kept.sort(LeaderboardEntry.RANKING);
+        writeLog(kept, generation + 1);
+        return all.size() - kept.size();
+    }
+
+    /**
+     * Empties the log, under a new generation so readers drop what they cached.
+     * The names file is kept: other processes append under the ids they have
+     * cached, so an id must never come to mean another name.
+     */
+    synchronized void clear() throws IOException {
+        locked(false, () -> {
+            int next = generation() + 1;
+            writeLog(List.of(), next);
+            if (listener != null)
+                listener.onClear();
+            return null;
+        });
+    }
+
+    /**
+     * Replaces the log with one holding {@code entries}, through a temp file
+     * and an atomic rename. Name ids are never reassigned, so a log and the
+     * names file stay consistent whichever of them a crash leaves behind.
+     */
+    private void writeLog(List<LeaderboardEntry> entries, int generation) throws IOException {
+        Files.createDirectories(logFile.toAbsolutePath().getParent());
+        if (entries.size() > (Integer.MAX_VALUE - HEADER_SIZE) / RECORD_SIZE)
+            throw new IOException("Too many leaderboard entries to rewrite: " + entries.size());
+
+        ByteArrayOutputStream newNames = new ByteArrayOutputStream();
+        ByteBuffer log = ByteBuffer.allocate(HEADER_SIZE + entries.size() * RECORD_SIZE);
+        log.putInt(MAGIC).putShort(VERSION).putShort((short) 0).putInt(generation);
+        for (LeaderboardEntry entry : entries) {
+            log.putInt(intern(entry.name(), newNames)).putInt(entry.health())
+                    .putInt(entry.level()).putLong(entry.epochMillis());
+        }
+
+        appendNames(newNames);
+        replace(logFile, log.array());
+    }
+
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        Files.write(tmp, content);
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns the id of {@code name}, assigning the next one if it is new and
+     * queueing it in {@code newNames} for {@link #appendNames}.
+     */
+    private int intern(String name, ByteArrayOutputStream newNames) throws IOException {
+        loadNewNames();
+        Integer id = nameIds.get(name);
+        if (id != null)
+            return id;
+
+        new DataOutputStream(newNames).writeUTF(name);
+        id = names.size();
+        names.add(name);
+        nameIds.put(name, id);
+        return id;
+    }
+
+    private void appendNames(ByteArrayOutputStream newNames) throws IOException {
+        if (newNames.size() == 0)
+            return;
+
+        try (FileChannel channel = FileChannel.open(namesFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(newNames.toByteArray());
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            channel.force(false);
+            namesBytesRead += newNames.size();
+        } catch (IOException e) {
+            // Ids handed out above never reached the file; re-read it next time
+            resetNames();
+            throw e;
+        }
+    }
+
+    private String name(int id) throws IOException {
+        if (id >= names.size())
+            loadNewNames();
+        return id < names.size() ? names.get(id) : "#" + id;
+    }
+
+    /** Picks up names appended since the last read, e.g. by another game process. */
+    private void loadNewNames() throws IOException {
+        if (!Files.exists(namesFile))
+            return;
+
+        long size = Files.size(namesFile);
+        if (size < namesBytesRead)
+            resetNames();
+        if (size == namesBytesRead)
+            return;
+
+        byte[] tail = new byte[(int) (size - namesBytesRead)];
+        try (FileChannel channel = FileChannel.open(namesFile, StandardOpenOption.READ)) {
+            channel.map(FileChannel.MapMode.READ_ONLY, namesBytesRead, tail.length).get(tail);
+        }
+
+        // Each name is a writeUTF string; stop at one cut short by a concurrent append
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(tail));
+        int consumed = 0;
+        while (tail.length - consumed >= Short.BYTES) {
+            int length = ((tail[consumed] & 0xFF) << 8) | (tail[consumed + 1] & 0xFF);
+            if (tail.length - consumed < Short.BYTES + length)
+                break;
+
+            String name = in.readUTF();
+            nameIds.put(name, names.size());
+            names.add(name);
+            consumed += Short.BYTES + length;
+        }
+        namesBytesRead += consumed;
+    }
+
+    private void resetNames() {
+        names.clear();
+        nameIds.clear();
+        namesBytesRead = 0;
+    }
+
+    /** Parses {@code name,health,level,dateTime}; the name is everything before the last three fields. */
+    static LeaderboardEntry parseCsvLine(String line) {
+        line = line.trim();
+        if (line.isEmpty())
+            return null;
+
+        int dateComma = line.lastIndexOf(',');
+        int levelComma = dateComma > 0 ? line.lastIndexOf(',', dateComma - 1) : -1;
+        int healthComma = levelComma > 0 ? line.lastIndexOf(',', levelComma - 1) : -1;
+        if (healthComma <= 0)
+            return null;
+
+        try {
+            long millis = LocalDateTime.parse(line.substring(dateComma + 1).trim())
+                    .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            return new LeaderboardEntry(line.substring(0, healthComma),
+                    Integer.parseInt(line.substring(healthComma + 1, levelComma).trim()),
+                    Integer.parseInt(line.substring(levelComma + 1, dateComma).trim()),
+                    millis);
+        } catch (NumberFormatException | DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package leaderboards;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Indexable skip list: a sorted collection that also answers "what is at
+ * position i" and "at which position is e" in O(log n).
+ * <p>
+ * Every forward link records how many bottom-level nodes it jumps over, so a
+ * search can add up positions on the way down. Elements comparing equal are
+ * kept side by side; {@link #remove(Object)} removes one of them.
+ */
+final class RankedIndex<E> {
+
+    private static final int MAX_LEVEL = 32;
+
+    private static final class Node<E> {
+        final E value;
+        final Node<E>[] next;
+        final int[] span;
+
+        Node(E value, int level) {
+            this.value = value;
+            this.next = newNodeArray(level);
+            this.span = new int[level];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> Node<E>[] newNodeArray(int length) {
+        return (Node<E>[]) new Node<?>[length];
+    }
+
+    private final Comparator<? super E> order;
+    private final Node<E> head = new Node<>(null, MAX_LEVEL);
+    private int level = 1;
+    private int size;
+
+    RankedIndex(Comparator<? super E> order) {
+        this.order = order;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        for (int i = 0; i < MAX_LEVEL; i++) {
+            head.next[i] = null;
+            head.span[i] = 0;
+        }
+        level = 1;
+        size = 0;
+    }
+
+    void add(E value) {
+        Node<E>[] update = newNodeArray(MAX_LEVEL);
+        int[] rank = new int[MAX_LEVEL];
+
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = i == level - 1 ? 0 : rank[i + 1];
+            while (x.next[i] != null && order.compare(x.next[i].value, value) <= 0) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = randomLevel();
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+
+        Node<E> node = new Node<>(value, nodeLevel);
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = rank[0] - rank[i] + 1;
+        }
+        for (int i = nodeLevel; i < level; i++)
+            update[i].span[i]++;
+
+        size++;
+    }
+
+    boolean remove(E value) {
+        Node<E>[] update = newNodeArray(MAX_LEVEL);
+
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0)
+                x = x.next[i];
+            update[i] = x;
+        }
+
+        Node<E> target = x.next[0];
+        if (target == null || order.compare(target.value, value) != 0)
+            return false;
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == target) {
+                update[i].span[i] += target.span[i] - 1;
+                update[i].next[i] = target.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null)
+            level--;
+
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the 0-based position of the first element equal to
+     * {@code value}, or -1 if there is none.
+     */
+    int rank(E value) {
+        int traversed = 0;
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && order.compare(x.next[i].value, value) < 0) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+
+        Node<E> candidate = x.next[0];
+        return candidate != null && order.compare(candidate.value, value) == 0 ? traversed : -1;
+    }
+
+    /**
+     * Returns up to {@code count} elements starting at position {@code from}.
+     */
+    List<E> range(int from, int count) {
+        List<E> result = new ArrayList<>(Math.max(0, Math.min(count, size - from)));
+        if (from < 0 || from >= size || count <= 0)
+            return result;
+
+        // Walk down to the node just before position `from`
+        int traversed = 0;
+        Node<E> x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] <= from) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+
+        for (Node<E> n = x.next[0]; n != null && result.size() < count; n = n.next[0])
+            result.add(n.value);
+        return result;
+    }
+
+    E get(int index) {
+        List<E> one = range(index, 1);
+        if (one.isEmpty())
+            throw new IndexOutOfBoundsException(index);
+        return one.getFirst();
+    }
+
+    private static int randomLevel() {
+        int level = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (level < MAX_LEVEL && random.nextInt(4) == 0)
+            level++;
+        return level;
+    }
+}
@@ -5,6 +5,7 @@ import engine.SandboxBackupManager;
 import levels.Level;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 public abstract class Stage {
     protected int stageNumber;
@@ -61,6 +62,19 @@ public abstract class Stage {
         }
     }
 
+    /** HUD row with the player's health bar. */
+    protected String hudHealth() {
+        return "HP: " + level.player.getStats().getHealthBar();
+    }
+
+    /** HUD row with the player's current directory, relative to where the sandbox lives. */
+    protected String hudLocation() {
+        Path current = level.sandbox.getExecutor().getCurrentDir().toAbsolutePath().normalize();
+        Path root = level.sandbox.getSandBoxPath().toAbsolutePath().normalize();
+        Path base = root.getParent() != null ? root.getParent() : root;
+        return "Location: " + (current.startsWith(base) ? base.relativize(current) : current);
+    }
+
     public abstract String[] getStageHeader();
 
     public abstract void play();
@@ -5,6 +5,7 @@ import elements.enemies.*;
 import elements.items.Decoy;
 import levels.Level;
 import utilities.CLIUtils;
+import utilities.StatusHud;
 
 import java.nio.file.Path;
 
@@ -99,32 +100,39 @@ public class Stage10 extends Stage {
         long enemyCount;
 
         boolean success = false;
-        while (!success && level.player.getStats().isAlive()) {
-            decoyNotDeleted = mission.getDecoyItems().stream().filter(decoy -> !decoy.isDeleted()).count();
-            enemyCount = mission.remainingEnemies();
-
-            IO.println(enemyCount + " monster/s remaining.");
-            IO.println(decoyNotDeleted + " decoy/s remaining.");
-
-            IO.print(">> ");
-            String input = IO.readln().trim();
-
-            if (input.startsWith("rm")) // this is for battling the mob files
-                success = rmFunction(input, mission);
-            else if (input.startsWith("ls"))
-                lsFunction(input, mission);
-            else if (input.startsWith("cat") || input.startsWith("cd") || input.startsWith("pwd")
-                    || input.startsWith("tree"))
-                level.sandbox.getExecutor().execute(input);
-            else if (input.startsWith("mkdir") || input.startsWith("mv")) // this is for creating the destroyed dungeon
-                IO.println("The spirits whisper: \"Cannot use that command in this stage.\"");
-            else { // if the input command is wrong
-                IO.println("The spirits whisper: \"That is not the command you were meant to use.\"");
-                continue;
-            }
+        StatusHud hud = new StatusHud(3);
+        try {
+            while (!success && level.player.getStats().isAlive()) {
+                decoyNotDeleted = mission.remainingDecoys();
+                enemyCount = mission.remainingEnemies();
+
+                hud.update(
+                        hudHealth(),
+                        enemyCount + " monster/s, " + decoyNotDeleted + " decoy/s remaining.",
+                        hudLocation());
+
+                IO.print(">> ");
+                String input = IO.readln().trim();
+
+                if (input.startsWith("rm")) // this is for battling the mob files
+                    success = rmFunction(input, mission);
+                else if (input.startsWith("ls"))
+                    lsFunction(input, mission);
+                else if (input.startsWith("cat") || input.startsWith("cd") || input.startsWith("pwd")
+                        || input.startsWith("tree"))
+                    level.sandbox.getExecutor().execute(input);
+                else if (input.startsWith("mkdir") || input.startsWith("mv")) // this is for creating the destroyed dungeon
+                    IO.println("The spirits whisper: \"Cannot use that command in this stage.\"");
+                else { // if the input command is wrong
+                    IO.println("The spirits whisper: \"That is not the command you were meant to use.\"");
+                    continue;
+                }
 
-            if (!level.player.getStats().isAlive())
-                break;
+                if (!level.player.getStats().isAlive())
+                    break;
+            }
+        } finally {
+            hud.close();
         }
         mission.cleanup();
     }
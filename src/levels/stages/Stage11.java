@@ -78,15 +78,9 @@ public class Stage11 extends Stage {
                 25);
         CLIUtils.typewriter("Type your command to begin the restoration...", 25);
 
-        int purifiedItems;
-        int returnedItems;
-
         boolean success = false;
         while (!success && level.player.getStats().isAlive()) {
-            purifiedItems = (int) mission.getCorrupts().stream().filter(c -> !c.isCorrectName()).count();
-            returnedItems = (int) mission.getCorrupts().stream().filter(c -> !c.isCorrectDir()).count();
-
-            IO.println(purifiedItems < returnedItems ? purifiedItems : returnedItems + " item/s remaining.\n\n");
+            IO.println(mission.remainingCorrupts() + " item/s remaining.\n\n");
             IO.print(">> ");
             String input = IO.readln().trim();
 
@@ -137,7 +131,7 @@ public class Stage11 extends Stage {
         if (!match)
             IO.println("The spirits whisper: \"There are something wrong with your action.\"");
 
-        return mission.getCorrupts().stream().filter(c -> !c.isCorrectDir() || !c.isCorrectName()).count() == 0;
+        return mission.corruptPurified();
     }
 
     private boolean seeMatch(String input, Corrupted c, boolean isTargetDir) {
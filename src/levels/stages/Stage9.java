@@ -6,6 +6,7 @@ import elements.items.Decoy;
 import elements.items.Shards;
 import levels.Level;
 import utilities.CLIUtils;
+import utilities.StatusHud;
 import gameplay.CommandResult;
 
 import java.nio.file.Path;
@@ -127,40 +128,47 @@ public class Stage9 extends Stage {
         long decoyNotDeleted;
 
         boolean success = false;
+        StatusHud hud = new StatusHud(3);
+
+        try {
+            while (!success && level.player.getStats().isAlive()) {
+
+                enemyCount = mission.remainingEnemies();
+                shardsNotCompleted = mission.remainingShards();
+                decoyNotDeleted = mission.remainingDecoys();
+
+                hud.update(
+                        hudHealth(),
+                        enemyCount + " monster/s, " + shardsNotCompleted + " shard/s, " + decoyNotDeleted
+                                + " decoy/s remaining.",
+                        hudLocation());
+
+                IO.print(">> ");
+                String input = IO.readln().trim();
+
+                if (input.equalsIgnoreCase("e") || input.equalsIgnoreCase("exit"))
+                    break;
+
+                if (input.startsWith("rm")) // this is for battling the mob files
+                    rmFunction(input, mission);
+                else if (input.startsWith("ls"))
+                    success = lsFunction(input, mission);
+                else if (input.startsWith("cat") || input.startsWith("cd") || input.startsWith("pwd")
+                        || input.startsWith("tree"))
+                    level.sandbox.getExecutor().execute(input);
+                else if (input.startsWith("mv")) // this is for moving the items to designated area
+                    moveFunction(input, mission);
+                else if (input.startsWith("mkdir")) // this is for creating the destroyed dungeon
+                    mkdirFunction(input);
+                else { // if the input command is wrong
+                    IO.println("The spirits whisper: \"That is not the command you were meant to use.\"");
+                }
 
-        while (!success && level.player.getStats().isAlive()) {
-
-            enemyCount = mission.remainingEnemies();
-            shardsNotCompleted = mission.getShards().stream().filter(shard -> !shard.isCorrectDir()).count();
-            decoyNotDeleted = mission.getDecoyItems().stream().filter(decoy -> !decoy.isDeleted()).count();
-
-            IO.println(enemyCount + " monster/s remaining.");
-            IO.println(shardsNotCompleted + " shard/s remaining.");
-            IO.println(decoyNotDeleted + " decoy/s remaining.\n\n");
-
-            IO.print(">> ");
-            String input = IO.readln().trim();
-
-            if (input.equalsIgnoreCase("e") || input.equalsIgnoreCase("exit"))
-                break;
-
-            if (input.startsWith("rm")) // this is for battling the mob files
-                rmFunction(input, mission);
-            else if (input.startsWith("ls"))
-                success = lsFunction(input, mission);
-            else if (input.startsWith("cat") || input.startsWith("cd") || input.startsWith("pwd")
-                    || input.startsWith("tree"))
-                level.sandbox.getExecutor().execute(input);
-            else if (input.startsWith("mv")) // this is for moving the items to designated area
-                moveFunction(input, mission);
-            else if (input.startsWith("mkdir")) // this is for creating the destroyed dungeon
-                mkdirFunction(input);
-            else { // if the input command is wrong
-                IO.println("The spirits whisper: \"That is not the command you were meant to use.\"");
+                if (!level.player.getStats().isAlive())
+                    break;
             }
-
-            if (!level.player.getStats().isAlive())
-                break;
+        } finally {
+            hud.close();
         }
 
         mission.cleanup();
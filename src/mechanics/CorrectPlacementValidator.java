@@ -3,6 +3,7 @@ package mechanics;
 import gameplay.CommandContext;
 import gameplay.CommandMiddleware;
 import gameplay.CommandResult;
+import gameplay.Mission;
 import player.Player;
 
 import java.nio.file.Path;
@@ -16,6 +17,7 @@ public class CorrectPlacementValidator implements CommandMiddleware {
 
     private boolean correctlyPlaced;
     private Player player;
+    private Mission.ProgressListener progressListener;
 
     public CorrectPlacementValidator(String targetFileName, Path targetDirectory) {
         this.targetDirectory = normalize(targetDirectory);
@@ -43,10 +45,22 @@ public class CorrectPlacementValidator implements CommandMiddleware {
         }
     }
 
+    public void setProgressListener(Mission.ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
     public boolean isCorrectlyPlaced() {
         return correctlyPlaced;
     }
 
+    private void markCorrectlyPlaced() {
+        if (correctlyPlaced)
+            return;
+        correctlyPlaced = true;
+        if (progressListener != null)
+            progressListener.onProgressChanged(true);
+    }
+
     // ---------- Normalization helper ----------
     private static Path normalize(Path p) {
         return p == null ? null : p.toAbsolutePath().normalize();
@@ -143,7 +157,7 @@ public class CorrectPlacementValidator implements CommandMiddleware {
 
             // rename inside correct folder INTO the target name
             if (isFinalLocation && isFinalName) {
-                correctlyPlaced = true;
+                markCorrectlyPlaced();
                 IO.println("[PlacementCheck] ✔ Correct file created in the right folder!");
             }
 
@@ -164,7 +178,7 @@ public class CorrectPlacementValidator implements CommandMiddleware {
         }
 
         // ---------- Correct placement ----------
-        correctlyPlaced = true;
+        markCorrectlyPlaced();
         IO.println("[PlacementCheck] ✔ File correctly placed!");
     }
 }
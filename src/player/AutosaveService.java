@@ -0,0 +1,192 @@
+package player;
+
+import utilities.Loggable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Saves player progress in the background while the game runs.
+ * <p>
+ * Every change to {@link PlayerStats} is encoded on the thread that made it
+ * and handed to a single daemon thread, which appends it to the
+ * {@link PlayerConfig} journal. Every {@code checkpointInterval} the same
+ * thread checkpoints, if anything was journaled since the last one: it backs
+ * up the inventory through the {@link Checkpointer}, commits the journal
+ * under that backup generation and writes a full save, which truncates the
+ * journal. A crash therefore loses at most one interval, and what survives
+ * always matches a backup. {@link #stop(Checkpointer)} only has to checkpoint
+ * what is left.
+ */
+public class AutosaveService implements Loggable {
+
+    private static final Duration DEFAULT_CHECKPOINT_INTERVAL = Duration.ofSeconds(30);
+    private static final long STOP_TIMEOUT_MS = 2000;
+
+    /** Backs up the inventory the journaled stats go with. */
+    @FunctionalInterface
+    public interface Checkpointer {
+        /**
+         * @return the backup generation written, or -1 if the backup failed
+         */
+        int backup();
+    }
+
+    private final PlayerConfig config;
+    private final PlayerStats stats;
+    private final Checkpointer checkpointer;
+    private final Duration checkpointInterval;
+    private final Queue<byte[]> pending = new ConcurrentLinkedQueue<>();
+    private final PlayerStats.ChangeListener listener = this::onChange;
+    private final Object journalLock = new Object();
+    private volatile ScheduledExecutorService executor;
+    private volatile boolean dirty;
+
+    public AutosaveService(PlayerConfig config, PlayerStats stats, Checkpointer checkpointer) {
+        this(config, stats, checkpointer, DEFAULT_CHECKPOINT_INTERVAL);
+    }
+
+    public AutosaveService(PlayerConfig config, PlayerStats stats, Checkpointer checkpointer,
+                           Duration checkpointInterval) {
+        this.config = config;
+        this.stats = stats;
+        this.checkpointer = checkpointer;
+        this.checkpointInterval = checkpointInterval;
+    }
+
+    /**
+     * Starts journaling changes. Anything left uncommitted by an earlier
+     * session is cut off first so it cannot be committed along with them, and
+     * the current state is checkpointed so the journal describes changes on
+     * top of it.
+     */
+    public synchronized void start() {
+        if (executor != null)
+            return;
+
+        try {
+            config.rollbackJournal();
+        } catch (IOException e) {
+            log("Failed to roll back journal: " + e.getMessage());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "autosave");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        dirty = true;
+        executor.execute(() -> checkpoint(checkpointer));
+        stats.addChangeListener(listener);
+
+        long intervalMs = checkpointInterval.toMillis();
+        executor.scheduleWithFixedDelay(() -> checkpoint(checkpointer), intervalMs, intervalMs,
+                TimeUnit.MILLISECONDS);
+        log("Autosave started, checkpoint every " + intervalMs + " ms");
+    }
+
+    /**
+     * Stops the background thread and checkpoints whatever is still
+     * journaled, backing up through {@code last}. If that backup fails the
+     * changes since the previous checkpoint are rolled back instead.
+     */
+    public synchronized void stop(Checkpointer last) {
+        if (executor == null)
+            return;
+
+        stats.removeChangeListener(listener);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(STOP_TIMEOUT_MS, TimeUnit.MILLISECONDS))
+                log("Autosave thread did not stop in time");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        executor = null;
+
+        // The final backup replaces the sandbox, so it is taken even if no stats changed
+        dirty = true;
+        if (!checkpoint(last)) {
+            try {
+                config.rollbackJournal();
+                log("Final backup failed, journal rolled back to the last checkpoint");
+            } catch (IOException e) {
+                log("Failed to roll back journal: " + e.getMessage());
+            }
+        }
+        log("Autosave stopped");
+    }
+
+    private void onChange(PlayerStats.Field field, PlayerStats stats) {
+        try {
+            pending.add(config.encodeChange(field));
+        } catch (IOException e) {
+            log("Failed to encode " + field + " change: " + e.getMessage());
+            return;
+        }
+
+        ScheduledExecutorService current = executor;
+        if (current == null)
+            return;
+        try {
+            current.execute(this::drain);
+        } catch (RejectedExecutionException e) {
+            // stopping; stop() drains whatever is left
+        }
+    }
+
+    private void drain() {
+        synchronized (journalLock) {
+            List<byte[]> batch = new ArrayList<>();
+            for (byte[] change; (change = pending.poll()) != null; )
+                batch.add(change);
+            if (batch.isEmpty())
+                return;
+
+            try {
+                config.appendJournal(batch);
+                dirty = true;
+            } catch (IOException e) {
+                log("Failed to journal " + batch.size() + " change(s): " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Backs up, commits the journal under the new generation and saves.
+     *
+     * @return false if the backup or the commit failed
+     */
+    private boolean checkpoint(Checkpointer backup) {
+        synchronized (journalLock) {
+            drain();
+            if (!dirty)
+                return true;
+
+            int generation = backup.backup();
+            if (generation < 0)
+                return false;
+
+            try {
+                config.commitJournal(generation);
+            } catch (IOException e) {
+                log("Failed to commit journal: " + e.getMessage());
+                return false;
+            }
+            if (config.save()) {
+                dirty = false;
+                log("Checkpoint written with backup generation " + generation);
+            }
+            return true;
+        }
+    }
+}
@@ -1,69 +1,338 @@
 package player;
 
+import storage.LogStore;
+
+import javax.crypto.AEADBadTagException;
 import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
 import javax.crypto.spec.IvParameterSpec;
 import javax.crypto.spec.SecretKeySpec;
 import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.*;
+import java.security.GeneralSecurityException;
 import java.security.MessageDigest;
 import java.security.SecureRandom;
 import java.util.*;
 
+/**
+ * Saves and loads player progress as a single authenticated record in the
+ * shared profile {@link LogStore} under {@code db/profiles}, keyed by file name.
+ * <p>
+ * Layout: {@code ["TDSV"][u16 version][12-byte IV][AES-GCM ciphertext + tag]}.
+ * The header is bound to the ciphertext as associated data, so tampering with
+ * either is caught by the tag check during decryption.
+ * <p>
+ * Between saves, individual field changes are appended to a journal kept in
+ * the same store under {@code <key>.journal}. Each record is
+ * {@code [u16 length][12-byte IV][ciphertext + tag]} holding one field's new
+ * value, authenticated together with its position in the journal. A record
+ * carries the absolute value, so replaying the journal over the last save is
+ * idempotent; {@link #save()} truncates it once the new save is stored. The
+ * journal only ever holds the changes since the last checkpoint, so rewriting
+ * it whole on every append stays cheap.
+ * <p>
+ * A commit marker ({@link #commitJournal(int)}) ties the records before it to
+ * the sandbox backup generation taken with them, and the save records that
+ * generation too. Only committed records are replayed, and
+ * {@link #getBackupGeneration()} names the backup to restore alongside, so
+ * the stats never run ahead of the inventory.
+ * <p>
+ * Saves written before this format (AES-CBC over JSON, with a separate
+ * SHA-256 file) are still read once and immediately re-saved in the current
+ * format. One that cannot be read is set aside as {@code .dat.unreadable}
+ * with a warning rather than silently overwritten.
+ */
 public class PlayerConfig {
 
-    private static final String CIPHER_ALGO = "AES/CBC/PKCS5Padding";
-    private static final int IV_SIZE = 16;
-
-    private final Path dataFile;
-    private final Path hashFile;
+    private static final String CIPHER_ALGO = "AES/GCM/NoPadding";
+    private static final byte[] MAGIC = {'T', 'D', 'S', 'V'};
+    private static final short FORMAT_VERSION = 1;
+    private static final int IV_SIZE = 12;
+    private static final int TAG_BITS = 128;
+    private static final int HEADER_SIZE = MAGIC.length + Short.BYTES + IV_SIZE;
+    private static final byte[] JOURNAL_MAGIC = {'T', 'D', 'S', 'J'};
+    private static final int JOURNAL_COMMIT = 0xFF;
+    private static final String LEGACY_CIPHER_ALGO = "AES/CBC/PKCS5Padding";
+    private static final int LEGACY_IV_SIZE = 16;
+
+    private final LogStore profiles;
+    private final String profileKey;
+    private final Path legacyDataFile;
+    private final Path legacyHashFile;
+    private final String journalKey;
+    private final ByteArrayOutputStream journal = new ByteArrayOutputStream();
+    private int journalRecords;
+    private int storedJournalLength = -1;
+    private int backupGeneration = -1;
     private final Player player;
     private final SecretKeySpec secretKey;
+    private final Cipher cipher;
+    private final SecureRandom random = new SecureRandom();
 
     public PlayerConfig(String fileName, Player player, String encryptionKey) {
         this.player = player;
         this.secretKey = deriveKey(encryptionKey);
 
+        try {
+            this.cipher = Cipher.getInstance(CIPHER_ALGO);
+        } catch (GeneralSecurityException e) {
+            throw new RuntimeException("AES-GCM is not available", e);
+        }
+
         Path basePath = Path.of(fileName);
         Path parent = basePath.getParent();
 
         Path cacheDir = (parent != null)
                 ? parent.resolve("cache").resolve("player")
                 : Path.of("cache").resolve("player");
+        Path dbDir = (parent != null)
+                ? parent.resolve("db").resolve("profiles")
+                : Path.of("db").resolve("profiles");
 
         try {
             Files.createDirectories(cacheDir);
+            this.profiles = LogStore.open(dbDir);
         } catch (IOException e) {
-            throw new RuntimeException("Failed to initialize player cache directory", e);
+            throw new RuntimeException("Failed to initialize player storage", e);
         }
 
-        this.dataFile = cacheDir.resolve(fileName + ".dat");
-        this.hashFile = cacheDir.resolve(fileName + ".dat.sha256");
+        this.profileKey = basePath.getFileName().toString();
+        this.legacyDataFile = cacheDir.resolve(fileName + ".dat");
+        this.legacyHashFile = cacheDir.resolve(fileName + ".dat.sha256");
+        this.journalKey = profileKey + ".journal";
     }
 
     /* ==========================
        SAVE
        ========================== */
 
-    public void save() {
+    /**
+     * Writes a full save, tagged with the backup generation of the last
+     * commit, and truncates the journal it supersedes.
+     *
+     * @return false if the save could not be written; the journal is kept
+     */
+    public synchronized boolean save() {
         try {
-            String json = toJson(buildDataMap());
-
-            byte[] encrypted = encrypt(json.getBytes(StandardCharsets.UTF_8));
-            Files.write(dataFile, encrypted,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            profiles.put(profileKey, seal(encodePayload()));
 
-            String hash = hash(encrypted);
-            Files.writeString(hashFile, hash,
-                    StandardOpenOption.CREATE,
-                    StandardOpenOption.TRUNCATE_EXISTING);
+            Files.deleteIfExists(legacyDataFile);
+            Files.deleteIfExists(legacyHashFile);
+            truncateJournal();
+            return true;
 
         } catch (Exception e) {
             System.err.println("Failed to save player config: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /* ==========================
+       JOURNAL
+       ========================== */
+
+    /**
+     * Encodes the current value of {@code field}. Call it on the thread that
+     * made the change so the record captures that value, not a later one.
+     */
+    public byte[] encodeChange(PlayerStats.Field field) throws IOException {
+        PlayerStats stats = player.getStats();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeByte(field.ordinal());
+        switch (field) {
+            case LEVEL -> out.writeInt(stats.getLevel());
+            case STAGE -> out.writeInt(stats.getStage());
+            case CURRENT_DIR -> out.writeUTF(stats.getCurrentDir());
+            case HEALTH -> out.writeInt(stats.getHealth());
+            case GRANTED -> {
+                Set<String> granted = stats.getGrantedCommands();
+                out.writeInt(granted.size());
+                for (String cmd : granted)
+                    out.writeUTF(cmd);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Seals and appends encoded changes to the journal, storing it once for
+     * the whole batch.
+     */
+    public synchronized void appendJournal(List<byte[]> changes) throws IOException {
+        if (changes.isEmpty())
+            return;
+
+        try {
+            DataOutputStream out = new DataOutputStream(journal);
+            for (byte[] change : changes) {
+                byte[] sealed = sealJournalRecord(change, journalRecords++);
+                out.writeShort(sealed.length);
+                out.write(sealed);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException("Failed to seal journal record", e);
+        }
+        storeJournal(journal.toByteArray());
+    }
+
+    /**
+     * Marks every change journaled so far as matching backup generation
+     * {@code generation}, which was just taken. Records after the last marker
+     * are dropped on replay.
+     */
+    public synchronized void commitJournal(int generation) throws IOException {
+        byte[] marker = ByteBuffer.allocate(1 + Integer.BYTES)
+                .put((byte) JOURNAL_COMMIT).putInt(generation)
+                .array();
+        appendJournal(List.of(marker));
+        backupGeneration = generation;
+    }
+
+    /**
+     * Backup generation the loaded stats were checkpointed with, or -1 if the
+     * save does not name one.
+     */
+    public synchronized int getBackupGeneration() {
+        return backupGeneration;
+    }
+
+    /**
+     * Cuts off changes journaled since the last commit marker, e.g. because
+     * the sandbox backup they belong with failed.
+     */
+    public synchronized void rollbackJournal() throws IOException {
+        readCommittedJournal(false);
+    }
+
+    private void truncateJournal() throws IOException {
+        journal.reset();
+        journalRecords = 0;
+        if (storedJournalLength != 0)
+            storeJournal(new byte[0]);
+    }
+
+    private void storeJournal(byte[] data) throws IOException {
+        profiles.put(journalKey, data);
+        storedJournalLength = data.length;
+    }
+
+    private byte[] sealJournalRecord(byte[] change, int index) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_SIZE];
+        random.nextBytes(iv);
+
+        ByteBuffer out = ByteBuffer.allocate(IV_SIZE + change.length + TAG_BITS / 8);
+        out.put(iv);
+
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(journalAad(index));
+        cipher.doFinal(ByteBuffer.wrap(change), out);
+        return out.array();
+    }
+
+    private byte[] journalAad(int index) {
+        return ByteBuffer.allocate(JOURNAL_MAGIC.length + Short.BYTES + Integer.BYTES)
+                .put(JOURNAL_MAGIC).putShort(FORMAT_VERSION).putInt(index)
+                .array();
+    }
+
+    /**
+     * Replays the committed part of the journal on top of the state just
+     * loaded. Only the last record for each field matters, so they are
+     * collected first and applied once.
+     */
+    private void replayJournal() throws IOException {
+        Map<PlayerStats.Field, DataInputStream> latest = readCommittedJournal(true);
+
+        for (var entry : latest.entrySet()) {
+            DataInputStream in = entry.getValue();
+            switch (entry.getKey()) {
+                case LEVEL -> restoreLevel(in.readInt());
+                case STAGE -> player.getStats().setStage(in.readInt());
+                case CURRENT_DIR -> player.getStats().setCurrentDir(in.readUTF());
+                case HEALTH -> player.setHealth(in.readInt());
+                case GRANTED -> {
+                    int count = in.readInt();
+                    Set<String> granted = new HashSet<>();
+                    for (int i = 0; i < count; i++)
+                        granted.add(in.readUTF());
+                    player.getStats().setGrantedCommands(granted);
+                }
+            }
         }
     }
 
+    /**
+     * Reads the journal up to its last commit marker and cuts off the rest:
+     * uncommitted changes as well as a torn or unreadable tail, so later
+     * appends line up again. With {@code report} the player is told when
+     * progress was dropped.
+     */
+    private Map<PlayerStats.Field, DataInputStream> readCommittedJournal(boolean report) throws IOException {
+        Map<PlayerStats.Field, DataInputStream> latest = new EnumMap<>(PlayerStats.Field.class);
+        byte[] data = profiles.get(journalKey);
+        if (data == null)
+            data = new byte[0];
+        storedJournalLength = data.length;
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        Map<PlayerStats.Field, DataInputStream> uncommitted = new EnumMap<>(PlayerStats.Field.class);
+        int records = 0;
+        int committedRecords = 0;
+        int committedLength = 0;
+
+        while (buffer.remaining() >= Short.BYTES) {
+            int length = Short.toUnsignedInt(buffer.getShort());
+            if (length < IV_SIZE + TAG_BITS / 8 || buffer.remaining() < length)
+                break;
+
+            int offset = buffer.position();
+            buffer.position(offset + length);
+
+            byte[] change;
+            try {
+                cipher.init(Cipher.DECRYPT_MODE, secretKey,
+                        new GCMParameterSpec(TAG_BITS, data, offset, IV_SIZE));
+                cipher.updateAAD(journalAad(records));
+                change = cipher.doFinal(data, offset + IV_SIZE, length - IV_SIZE);
+            } catch (GeneralSecurityException e) {
+                System.err.println("Journal record " + records + " failed its integrity check; ignoring the rest.");
+                break;
+            }
+            records++;
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(change));
+            int ordinal = in.readUnsignedByte();
+            if (ordinal == JOURNAL_COMMIT) {
+                backupGeneration = in.readInt();
+                latest.putAll(uncommitted);
+                uncommitted.clear();
+                committedRecords = records;
+                committedLength = buffer.position();
+                continue;
+            }
+            if (ordinal >= PlayerStats.Field.values().length)
+                break;
+            uncommitted.put(PlayerStats.Field.values()[ordinal], in);
+        }
+
+        if (report && !uncommitted.isEmpty())
+            IO.println("Progress made after your last backup could not be restored.");
+        journal.reset();
+        journal.write(data, 0, committedLength);
+        journalRecords = committedRecords;
+        if (committedLength < data.length)
+            storeJournal(journal.toByteArray());
+        return latest;
+    }
+
+    private void restoreLevel(int level) {
+        player.getStats().setLevel(level);
+        player.initialLevel = level;
+    }
+
     /* ==========================
        LOAD
        ========================== */
@@ -74,34 +343,48 @@ public class PlayerConfig {
         player.getStats().setCurrentDir("");
         player.getStats().setHealth(100);
         player.initialLevel = 1;
+        backupGeneration = -1;
     }
 
-    public void load() {
-        if (!Files.exists(dataFile) || !Files.exists(hashFile)) {
-            resetPlayerStats();
-            return;
-        }
-
+    /**
+     * Loads the last save and replays any journal written after it.
+     */
+    public synchronized void load() {
         try {
-            byte[] encrypted = Files.readAllBytes(dataFile);
-            String storedHash = Files.readString(hashFile).trim();
-            String computedHash = hash(encrypted);
-
-            if (!computedHash.equals(storedHash)) {
-                System.err.println("Integrity check failed. Resetting player stats.");
-                resetPlayerStats();
-                return;
+            byte[] sealed = profiles.get(profileKey);
+            // Saves from before the profile store still sit in their own file until the next save
+            if (sealed == null && Files.exists(legacyDataFile)) {
+                byte[] legacy = Files.readAllBytes(legacyDataFile);
+                if (!isSealed(legacy)) {
+                    migrateLegacySave(legacy);
+                    return;
+                }
+                sealed = legacy;
             }
 
-            byte[] decrypted = decrypt(encrypted);
-            Map<String, String> data = parseJson(
-                    new String(decrypted, StandardCharsets.UTF_8));
+            if (sealed != null)
+                applyPayload(open(sealed));
+            else
+                resetPlayerStats();
 
-            applyData(data);
+            replayJournal();
 
+        } catch (AEADBadTagException e) {
+            System.err.println("Integrity check failed. Resetting player stats.");
+            resetPlayerStats();
+            discardJournal();
         } catch (Exception e) {
             System.err.println("Failed to load player config. Resetting stats.");
             resetPlayerStats();
+            discardJournal();
+        }
+    }
+
+    private void discardJournal() {
+        try {
+            truncateJournal();
+        } catch (IOException e) {
+            System.err.println("Failed to discard player journal: " + e.getMessage());
         }
     }
 
@@ -119,99 +402,161 @@ public class PlayerConfig {
         }
     }
 
-    private byte[] encrypt(byte[] data) throws Exception {
-        Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-
+    private byte[] seal(byte[] payload) throws GeneralSecurityException {
         byte[] iv = new byte[IV_SIZE];
-        new SecureRandom().nextBytes(iv);
+        random.nextBytes(iv);
 
-        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new IvParameterSpec(iv));
-        byte[] cipherText = cipher.doFinal(data);
+        ByteBuffer out = ByteBuffer.allocate(HEADER_SIZE + payload.length + TAG_BITS / 8);
+        out.put(MAGIC).putShort(FORMAT_VERSION).put(iv);
 
-        ByteArrayOutputStream out = new ByteArrayOutputStream();
-        out.write(iv);
-        out.write(cipherText);
-        return out.toByteArray();
+        cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(out.array(), 0, HEADER_SIZE);
+        cipher.doFinal(ByteBuffer.wrap(payload), out);
+        return out.array();
     }
 
-    private byte[] decrypt(byte[] encrypted) throws Exception {
-        byte[] iv = Arrays.copyOfRange(encrypted, 0, IV_SIZE);
-        byte[] payload = Arrays.copyOfRange(encrypted, IV_SIZE, encrypted.length);
+    private static boolean isSealed(byte[] data) {
+        return data.length >= HEADER_SIZE + TAG_BITS / 8
+                && Arrays.equals(data, 0, MAGIC.length, MAGIC, 0, MAGIC.length);
+    }
 
-        Cipher cipher = Cipher.getInstance(CIPHER_ALGO);
-        cipher.init(Cipher.DECRYPT_MODE, secretKey, new IvParameterSpec(iv));
+    private byte[] open(byte[] sealed) throws GeneralSecurityException, IOException {
+        if (!isSealed(sealed))
+            throw new IOException("Not a save file");
 
-        return cipher.doFinal(payload);
-    }
+        ByteBuffer header = ByteBuffer.wrap(sealed, MAGIC.length, Short.BYTES);
+        short version = header.getShort();
+        if (version != FORMAT_VERSION)
+            throw new IOException("Unsupported save format version " + version);
 
-    private String hash(byte[] data) throws Exception {
-        MessageDigest sha = MessageDigest.getInstance("SHA-256");
-        return Base64.getEncoder().encodeToString(sha.digest(data));
+        cipher.init(Cipher.DECRYPT_MODE, secretKey,
+                new GCMParameterSpec(TAG_BITS, sealed, HEADER_SIZE - IV_SIZE, IV_SIZE));
+        cipher.updateAAD(sealed, 0, HEADER_SIZE);
+        return cipher.doFinal(sealed, HEADER_SIZE, sealed.length - HEADER_SIZE);
     }
 
     /* ==========================
        DATA HANDLING
        ========================== */
 
-    private Map<String, Object> buildDataMap() {
-        Map<String, Object> data = new LinkedHashMap<>();
-        data.put("level", player.getStats().getLevel());
-        data.put("stage", player.getStats().getStage());
-        data.put("currentDir",
-                Path.of(player.getStats().getCurrentDir()).normalize().toString());
-        data.put("health", player.getStats().getHealth());
-        data.put("granted", player.getStats().getGrantedCommands());
-        return data;
+    private byte[] encodePayload() throws IOException {
+        PlayerStats stats = player.getStats();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+
+        out.writeInt(stats.getLevel());
+        out.writeInt(stats.getStage());
+        out.writeUTF(Path.of(stats.getCurrentDir()).normalize().toString());
+        out.writeInt(stats.getHealth());
+
+        Set<String> granted = stats.getGrantedCommands();
+        out.writeInt(granted.size());
+        for (String cmd : granted)
+            out.writeUTF(cmd);
+
+        out.writeInt(backupGeneration);
+        return bytes.toByteArray();
+    }
+
+    private void applyPayload(byte[] payload) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(payload));
+
+        int level = in.readInt();
+        int stage = in.readInt();
+        String currentDir = in.readUTF();
+        int health = in.readInt();
+
+        int grantedCount = in.readInt();
+        Set<String> granted = new HashSet<>();
+        for (int i = 0; i < grantedCount; i++)
+            granted.add(in.readUTF());
+        // Saves written before checkpoints end here
+        backupGeneration = in.available() >= Integer.BYTES ? in.readInt() : -1;
+
+        player.promoteLevelTo(level);
+        player.getStats().setStage(stage);
+        player.getStats().setCurrentDir(currentDir);
+        player.setHealth(health);
+        player.getStats().setGrantedCommands(granted);
+    }
+
+    /* ==========================
+       LEGACY FORMAT
+       ========================== */
+
+    /**
+     * Loads a pre-GCM save and re-saves it in the current format, which also
+     * removes the old files. If it cannot be read, the player is told and the
+     * file is kept aside instead of being deleted by the next save.
+     */
+    private void migrateLegacySave(byte[] encrypted) {
+        try {
+            if (Files.exists(legacyHashFile)) {
+                String storedHash = Files.readString(legacyHashFile).trim();
+                String computedHash = Base64.getEncoder().encodeToString(
+                        MessageDigest.getInstance("SHA-256").digest(encrypted));
+                if (!computedHash.equals(storedHash))
+                    throw new IOException("integrity check failed");
+            }
+
+            Cipher legacyCipher = Cipher.getInstance(LEGACY_CIPHER_ALGO);
+            legacyCipher.init(Cipher.DECRYPT_MODE, secretKey,
+                    new IvParameterSpec(encrypted, 0, LEGACY_IV_SIZE));
+            byte[] json = legacyCipher.doFinal(encrypted, LEGACY_IV_SIZE, encrypted.length - LEGACY_IV_SIZE);
+
+            applyLegacyData(parseJson(new String(json, StandardCharsets.UTF_8)));
+            if (save())
+                IO.println("Your save was converted to the new format.");
+
+        } catch (Exception e) {
+            Path unreadable = legacyDataFile.resolveSibling(legacyDataFile.getFileName() + ".unreadable");
+            System.err.println("Your previous save could not be read (" + e.getMessage()
+                    + "). Starting from the beginning; the old file was kept as " + unreadable + ".");
+            try {
+                Files.move(legacyDataFile, unreadable, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveFailed) {
+                System.err.println("Failed to set aside old save: " + moveFailed.getMessage());
+            }
+            resetPlayerStats();
+        }
     }
 
-    private void applyData(Map<String, String> data) {
+    private void applyLegacyData(Map<String, String> data) {
         data.forEach((key, value) -> {
             switch (key) {
                 case "level" -> player.promoteLevelTo(Integer.parseInt(value));
                 case "health" -> player.setHealth(Integer.parseInt(value));
                 case "stage" -> player.getStats().setStage(Integer.parseInt(value));
                 case "currentDir" -> player.getStats().setCurrentDir(value);
-                case "granted" -> {
-                    List<String> cmds = parseJsonArray(value);
-                    player.getStats().setGrantedCommands(new HashSet<>(cmds));
-                }
+                case "granted" -> player.getStats().setGrantedCommands(new HashSet<>(parseJsonArray(value)));
             }
         });
     }
 
-    /* ==========================
-       JSON (unchanged)
-       ========================== */
-
-    private String toJson(Map<String, Object> data) {
-        StringBuilder sb = new StringBuilder("{\n");
-        int count = 0;
-
-        for (var entry : data.entrySet()) {
-            sb.append("  \"").append(entry.getKey()).append("\": ");
-            Object val = entry.getValue();
-
-            if (val instanceof Number) sb.append(val);
-            else if (val instanceof Collection<?> col) {
-                sb.append("[");
-                sb.append(col.stream()
-                        .map(v -> "\"" + v + "\"")
-                        .reduce((a, b) -> a + "," + b)
-                        .orElse(""));
-                sb.append("]");
-            } else sb.append("\"").append(val).append("\"");
-
-            if (++count < data.size()) sb.append(",");
-            sb.append("\n");
-        }
-        return sb.append("}").toString();
-    }
-
     private Map<String, String> parseJson(String json) {
         Map<String, String> map = new LinkedHashMap<>();
         json = json.trim().replaceAll("^\\{|}$", "");
 
-        String[] pairs = json.split(",(?=(?:[^\"]*\"[^\"]*\")*[^\"]*$)");
+        // Split on top-level commas only, so "granted": ["ls","cd"] stays one pair
+        List<String> pairs = new ArrayList<>();
+        boolean quoted = false;
+        int depth = 0;
+        int start = 0;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"')
+                quoted = !quoted;
+            else if (!quoted && c == '[')
+                depth++;
+            else if (!quoted && c == ']')
+                depth--;
+            else if (!quoted && depth == 0 && c == ',') {
+                pairs.add(json.substring(start, i));
+                start = i + 1;
+            }
+        }
+        pairs.add(json.substring(start));
+
         for (String pair : pairs) {
             String[] kv = pair.split(":", 2);
             if (kv.length == 2)
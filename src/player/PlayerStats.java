@@ -1,7 +1,9 @@
 package player;
 
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Abstract class representing persistent stats for any game entity.
@@ -21,6 +23,31 @@ public class PlayerStats extends AliveStats {
     /** Granted commands */
     protected Set<String> grantedCommands = new HashSet<>();
 
+    public enum Field {
+        LEVEL, STAGE, CURRENT_DIR, HEALTH, GRANTED
+    }
+
+    /** Notified on the mutating thread after a field has actually changed. */
+    @FunctionalInterface
+    public interface ChangeListener {
+        void onChange(Field field, PlayerStats stats);
+    }
+
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private void fireChange(Field field) {
+        for (ChangeListener listener : listeners)
+            listener.onChange(field, this);
+    }
+
     // ---------------------------
     // LEVEL
     // ---------------------------
@@ -32,7 +59,10 @@ public class PlayerStats extends AliveStats {
         // IO.println("Player stats level: " + level);
         if (level < 1)
             level = 1;
+        boolean changed = this.level != level;
         this.level = level;
+        if (changed)
+            fireChange(Field.LEVEL);
     }
 
     // ---------------------------
@@ -45,7 +75,10 @@ public class PlayerStats extends AliveStats {
     public void setStage(int stage) {
         if (stage < 1)
             stage = 1;
+        boolean changed = this.stage != stage;
         this.stage = stage;
+        if (changed)
+            fireChange(Field.STAGE);
     }
 
     // ---------------------------
@@ -56,11 +89,23 @@ public class PlayerStats extends AliveStats {
     }
 
     public void setCurrentDir(String currentDir) {
-        if (currentDir != null && !currentDir.isBlank()) {
+        if (currentDir != null && !currentDir.isBlank() && !currentDir.equals(this.currentDir)) {
             this.currentDir = currentDir;
+            fireChange(Field.CURRENT_DIR);
         }
     }
 
+    // ---------------------------
+    // HEALTH
+    // ---------------------------
+    @Override
+    public void setHealth(int health) {
+        int previous = this.health;
+        super.setHealth(health);
+        if (this.health != previous)
+            fireChange(Field.HEALTH);
+    }
+
     // ---------------------------
     // GRANTED COMMANDS
     // ---------------------------
@@ -74,7 +119,10 @@ public class PlayerStats extends AliveStats {
     }
 
     public void setGrantedCommands(Set<String> grantedCommands) {
+        boolean changed = !this.grantedCommands.equals(grantedCommands);
         this.grantedCommands = new HashSet<>(grantedCommands);
+        if (changed)
+            fireChange(Field.GRANTED);
     }
 
     /**
@@ -83,7 +131,10 @@ public class PlayerStats extends AliveStats {
      */
     public void updateGrantedCommands(GrantedCallback callback) {
         if (callback != null) {
+            Set<String> previous = Set.copyOf(this.grantedCommands);
             this.grantedCommands = new HashSet<>(callback.onUpdate(this.grantedCommands));
+            if (!previous.equals(this.grantedCommands))
+                fireChange(Field.GRANTED);
         }
     }
 
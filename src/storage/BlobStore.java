@@ -0,0 +1,248 @@
+package storage;
+
+import utilities.Loggable;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Content-addressed store shared by every player's inventory.
+ * <p>
+ * Each distinct item content is kept once under its SHA-256, and an inventory
+ * holds a hard link to it (or a copy where links are not possible). Disk use
+ * therefore grows with the number of distinct items rather than players times
+ * items.
+ * <p>
+ * References are not counted, because inventories also disappear wholesale
+ * (a sandbox flush, an evicted backup generation) without going through the
+ * store. Instead a blob is garbage once nothing links to it any more: its
+ * link count is back to one and, where link counts cannot be read, no live
+ * inventory manifest names it. {@link #release(String)} checks one blob,
+ * {@link #collect(Set)} sweeps them all. Blobs retained within the last
+ * {@value #GRACE_MINUTES} minutes are always kept, so an item that is being
+ * added, by this or another process, is never swept from under it.
+ * {@code refs.idx} records when each blob was last retained and is updated
+ * under a file lock.
+ * <p>
+ * Because item files share their inode with the blob, anything that writes to
+ * an inventory file in place must call {@code SnapshotGuard.beforeWrite} first.
+ */
+public class BlobStore implements Loggable {
+
+    private static final long GRACE_MINUTES = 10;
+    private static final long GRACE_MILLIS = Duration.ofMinutes(GRACE_MINUTES).toMillis();
+
+    @FunctionalInterface
+    private interface RefsOperation<T> {
+        T apply(Map<String, Long> retainedAt) throws IOException;
+    }
+
+    private final Path root;
+    private final Path refsFile;
+    private final Path lockFile;
+
+    public BlobStore(Path root) {
+        this.root = root;
+        this.refsFile = root.resolve("refs.idx");
+        this.lockFile = root.resolve("refs.idx.lock");
+
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to initialize blob store", e);
+        }
+    }
+
+    /**
+     * Adds a reference to the content of {@code source}, storing the content
+     * first if no player holds it yet.
+     *
+     * @return the blob hash to pass to {@link #link(String, Path)} and {@link #release(String)}
+     */
+    public String retain(Path source) throws IOException {
+        String hash = sha256(source);
+        Path blob = blobPath(hash);
+
+        locked(retainedAt -> {
+            if (!Files.exists(blob)) {
+                Files.createDirectories(blob.getParent());
+                Path tmp = blob.resolveSibling(hash + ".tmp");
+                Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+                Files.move(tmp, blob, StandardCopyOption.ATOMIC_MOVE);
+                log("Stored new blob: " + hash);
+            }
+            retainedAt.put(hash, System.currentTimeMillis());
+            return null;
+        });
+        return hash;
+    }
+
+    /**
+     * Makes the blob appear at {@code target}, as a hard link when possible.
+     */
+    public void link(String hash, Path target) throws IOException {
+        Path blob = blobPath(hash);
+        try {
+            Files.createLink(target, blob);
+        } catch (FileAlreadyExistsException e) {
+            throw e;
+        } catch (UnsupportedOperationException | FileSystemException e) {
+            Files.copy(blob, target);
+        }
+    }
+
+    /**
+     * Called after a reference to {@code hash} went away; deletes the blob if
+     * that was the last link to it. Where link counts cannot be read the blob
+     * is left for {@link #collect(Set)}.
+     */
+    public void release(String hash) throws IOException {
+        locked(retainedAt -> {
+            Path blob = blobPath(hash);
+            if (isGarbage(blob, hash, Set.of(), retainedAt, System.currentTimeMillis(), false)) {
+                Files.deleteIfExists(blob);
+                retainedAt.remove(hash);
+                log("Deleted unreferenced blob: " + hash);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Deletes every blob that is neither linked from anywhere nor named in
+     * {@code live}, the blob hashes of every inventory manifest still around.
+     *
+     * @return the number of blobs deleted
+     */
+    public int collect(Set<String> live) throws IOException {
+        return locked(retainedAt -> {
+            long now = System.currentTimeMillis();
+            int deleted = 0;
+
+            try (DirectoryStream<Path> prefixes = Files.newDirectoryStream(root, "??")) {
+                for (Path prefix : prefixes) {
+                    if (!Files.isDirectory(prefix))
+                        continue;
+                    try (DirectoryStream<Path> blobs = Files.newDirectoryStream(prefix)) {
+                        for (Path blob : blobs) {
+                            String hash = blob.getFileName().toString();
+                            if (hash.endsWith(".tmp") || !isGarbage(blob, hash, live, retainedAt, now, true))
+                                continue;
+                            Files.deleteIfExists(blob);
+                            retainedAt.remove(hash);
+                            deleted++;
+                        }
+                    }
+                }
+            }
+
+            // Forget blobs that are gone for good
+            retainedAt.keySet().removeIf(hash -> !Files.exists(blobPath(hash)));
+            if (deleted > 0)
+                log("Collected " + deleted + " unreferenced blob(s)");
+            return deleted;
+        });
+    }
+
+    /**
+     * A blob is garbage when it is past its grace period, not in {@code live},
+     * and only the store itself links to it. Without readable link counts that
+     * last check is left to the caller: {@code trustLive} decides.
+     */
+    private static boolean isGarbage(Path blob, String hash, Set<String> live, Map<String, Long> retainedAt,
+                                     long now, boolean trustLive) throws IOException {
+        if (!Files.exists(blob) || live.contains(hash))
+            return false;
+        if (now - retainedAt.getOrDefault(hash, 0L) < GRACE_MILLIS)
+            return false;
+
+        try {
+            return (Integer) Files.getAttribute(blob, "unix:nlink") <= 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            return trustLive;
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return root.resolve(hash.substring(0, 2)).resolve(hash);
+    }
+
+    private synchronized <T> T locked(RefsOperation<T> operation) throws IOException {
+        try (FileChannel channel = FileChannel.open(lockFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             FileLock ignored = channel.lock()) {
+
+            Map<String, Long> retainedAt = readRefs();
+            T result = operation.apply(retainedAt);
+            writeRefs(retainedAt);
+            return result;
+        }
+    }
+
+    private Map<String, Long> readRefs() throws IOException {
+        Map<String, Long> retainedAt = new TreeMap<>();
+        if (!Files.exists(refsFile))
+            return retainedAt;
+
+        try (BufferedReader reader = Files.newBufferedReader(refsFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] f = line.split("\t");
+                Long millis = f.length == 2 ? parseMillis(f[1]) : null;
+                if (millis != null)
+                    retainedAt.put(f[0], millis);
+                else
+                    log(LogLevel.WARN, "Skipping malformed line in " + refsFile.getFileName() + ": " + line);
+            }
+        }
+        return retainedAt;
+    }
+
+    private static Long parseMillis(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private void writeRefs(Map<String, Long> retainedAt) throws IOException {
+        Path tmp = refsFile.resolveSibling(refsFile.getFileName() + ".tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            for (Map.Entry<String, Long> e : retainedAt.entrySet()) {
+                writer.write(e.getKey() + "\t" + e.getValue());
+                writer.newLine();
+            }
+        }
+        Files.move(tmp, refsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static String sha256(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 unavailable", e);
+        }
+
+        try (InputStream in = new DigestInputStream(Files.newInputStream(file), digest)) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -1,27 +1,35 @@
 package storage;
 
 import utilities.Loggable;
+import elements.items.Letter;
 import elements.items.ObtainableItem;
+import elements.items.RetrievableItem;
+import elements.items.Scroll;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.*;
 
 public class Inventory implements Loggable {
 
     private final String id;
     private final String label;
     private final Path basePath; // base directory for all items
-    private final List<ObtainableItem> items = new ArrayList<>();
+    private final Map<String, ObtainableItem> itemsById = new LinkedHashMap<>();
+    private final Map<String, List<ObtainableItem>> itemsByLabel = new HashMap<>();
+    private final InventoryManifest manifest;
+    private BlobStore blobStore;
     private boolean locked;
 
     public Inventory(String label, String id, String path) {
         this.label = label;
         this.id = id;
         this.basePath = Path.of(path);   // direct path
+        this.manifest = new InventoryManifest(basePath);
         ensureBasePath();
+        reload();
     }
 
     // Constructor 2: sandboxRoot + relative path
@@ -31,8 +39,10 @@ public class Inventory implements Loggable {
 
         // SAFELY combine sandbox + relative path
         this.basePath = Path.of(sandboxPath).resolve(path);
+        this.manifest = new InventoryManifest(basePath);
 
         ensureBasePath();
+        reload();
     }
 
     private void ensureBasePath() {
@@ -51,8 +61,55 @@ public class Inventory implements Loggable {
         return basePath;
     }
 
+    /**
+     * Backs newly added items with a shared {@link BlobStore}, so identical
+     * items held by different players are stored once.
+     */
+    public void useBlobStore(BlobStore blobStore) {
+        this.blobStore = blobStore;
+        reload();
+    }
+
+    public BlobStore getBlobStore() {
+        return blobStore;
+    }
+
+    public Path getManifestPath() {
+        return basePath.resolve(InventoryManifest.FILE_NAME);
+    }
+
+    /** Blob hashes the items currently in this inventory refer to. */
+    public synchronized Set<String> getBlobHashes() {
+        Set<String> hashes = new HashSet<>();
+        for (ObtainableItem item : itemsById.values()) {
+            String hash = item.getStorage().getBlobHash();
+            if (hash != null)
+                hashes.add(hash);
+        }
+        return hashes;
+    }
+
+    /** Blob hashes named by the inventory manifest at {@code manifestFile}, if there is one. */
+    public static Set<String> blobsInManifest(Path manifestFile) throws IOException {
+        return blobs(InventoryManifest.load(manifestFile).values());
+    }
+
+    /** Same as {@link #blobsInManifest(Path)} for manifest bytes, e.g. read from an archive. */
+    public static Set<String> blobsInManifest(ByteBuffer manifest) throws IOException {
+        return blobs(InventoryManifest.parse(manifest).values());
+    }
+
+    private static Set<String> blobs(Collection<InventoryManifest.Record> records) {
+        Set<String> hashes = new HashSet<>();
+        for (InventoryManifest.Record record : records) {
+            if (!record.blob().isEmpty())
+                hashes.add(record.blob());
+        }
+        return hashes;
+    }
+
     // Add a file from source path into the bag
-    public boolean addItem(String sourceFilePath, String fileName) {
+    public synchronized boolean addItem(String sourceFilePath, String fileName) {
         try {
             Storage storage = new Storage(sourceFilePath, fileName);
             ObtainableItem item = new ObtainableItem(fileName, fileName, storage);
@@ -65,28 +122,118 @@ public class Inventory implements Loggable {
         }
     }
 
-    public boolean addItem(ObtainableItem item) {
+    public synchronized boolean addItem(ObtainableItem item) {
         storeThenAddToItemList(item);
         log("Added item: " + item.getStorage().source.getFileName() + " to inventory: " + label);
         return true;
     }
 
     private void storeThenAddToItemList(ObtainableItem item) {
-        item.getStorage().storeItem(basePath);
-        items.add(item);
+        if (blobStore != null)
+            item.getStorage().storeItem(basePath, blobStore);
+        else
+            item.getStorage().storeItem(basePath);
+        index(item);
+
+        try {
+            String kind = kindOf(item);
+            String blob = item.getStorage().getBlobHash();
+            manifest.appendAdd(new InventoryManifest.Record(kind, item.getId(), item.getLabel(),
+                    basePath.relativize(item.getStorage().getItemPath()).toString(), blob == null ? "" : blob));
+        } catch (IOException e) {
+            log("Failed to record item in manifest: " + item.getId() + " | Error: " + e.getMessage());
+        }
     }
 
-    public boolean removeItem(ObtainableItem item) {
-        if (items.remove(item)) {
-            item.getStorage().deleteItem();
-            log("Removed item: " + item.getLabel() + " from inventory: " + label);
-            return true;
+    public synchronized boolean removeItem(ObtainableItem item) {
+        if (itemsById.get(item.getId()) != item)
+            return false;
+
+        unindex(item);
+        item.getStorage().deleteItem();
+
+        try {
+            manifest.appendRemove(item.getId());
+        } catch (IOException e) {
+            log("Failed to record removal in manifest: " + item.getId() + " | Error: " + e.getMessage());
         }
-        return false;
+
+        log("Removed item: " + item.getLabel() + " from inventory: " + label);
+        return true;
     }
 
     public List<ObtainableItem> getItems() {
-        return Collections.unmodifiableList(items);
+        return List.copyOf(itemsById.values());
+    }
+
+    public ObtainableItem findById(String itemId) {
+        return itemsById.get(itemId);
+    }
+
+    public List<ObtainableItem> findByLabel(String itemLabel) {
+        return Collections.unmodifiableList(itemsByLabel.getOrDefault(itemLabel, List.of()));
+    }
+
+    /**
+     * Rebuilds the in-memory item list from the on-disk manifest, e.g. after a
+     * backup has been restored into {@link #getBasePath()}. Only the manifest
+     * is read; item files are not touched until they are retrieved.
+     */
+    public synchronized void reload() {
+        itemsById.clear();
+        itemsByLabel.clear();
+
+        try {
+            for (InventoryManifest.Record record : manifest.load().values()) {
+                Path itemPath = basePath.resolve(record.fileName());
+                Storage storage = record.blob().isEmpty() || blobStore == null
+                        ? Storage.ofStoredItem(itemPath)
+                        : Storage.ofStoredItem(itemPath, blobStore, record.blob());
+                index(restore(record.kind(), record.label(), record.id(), storage));
+            }
+            if (!itemsById.isEmpty())
+                log("Restored " + itemsById.size() + " item(s) into inventory: " + label);
+        } catch (IOException e) {
+            log("Failed to load inventory manifest: " + e.getMessage());
+        }
+    }
+
+    // Manifest kind of an item; most specific type first
+    private static String kindOf(ObtainableItem item) {
+        return switch (item) {
+            case Letter letter -> "letter";
+            case Scroll scroll -> "scroll";
+            case RetrievableItem retrievable -> "retrievable";
+            default -> "obtainable";
+        };
+    }
+
+    private static ObtainableItem restore(String kind, String label, String id, Storage storage) {
+        return switch (kind) {
+            case "letter" -> new Letter(label, id, storage);
+            case "scroll" -> new Scroll(label, id, storage);
+            case "retrievable" -> new RetrievableItem(label, id, storage);
+            default -> new ObtainableItem(label, id, storage);
+        };
+    }
+
+    private void index(ObtainableItem item) {
+        ObtainableItem existing = itemsById.get(item.getId());
+        if (existing != null)
+            unindex(existing);
+
+        itemsById.put(item.getId(), item);
+        itemsByLabel.computeIfAbsent(item.getLabel(), k -> new ArrayList<>()).add(item);
+    }
+
+    private void unindex(ObtainableItem item) {
+        itemsById.remove(item.getId());
+        List<ObtainableItem> sameLabel = itemsByLabel.get(item.getLabel());
+        if (sameLabel != null) {
+            sameLabel.remove(item);
+            if (sameLabel.isEmpty())
+                itemsByLabel.remove(item.getLabel());
+        }
     }
 
     public void setLocked(boolean locked) {
@@ -106,10 +253,18 @@ public class Inventory implements Loggable {
         return getItems();
     }
 
-    public void discardAll() {
-        for (ObtainableItem item : items) {
+    public synchronized void discardAll() {
+        for (ObtainableItem item : itemsById.values()) {
             item.discard(); // deletes the file
         }
+        itemsById.clear();
+        itemsByLabel.clear();
+
+        try {
+            manifest.clear();
+        } catch (IOException e) {
+            log("Failed to clear inventory manifest: " + e.getMessage());
+        }
     }
 
     @Override
@@ -117,7 +272,7 @@ public class Inventory implements Loggable {
         return "Inventory{" +
                 "label='" + label + '\'' +
                 ", id='" + id + '\'' +
-                ", items=" + items.size() +
+                ", items=" + itemsById.size() +
                 ", locked=" + locked +
                 '}';
     }
@@ -0,0 +1,147 @@
+package storage;
+
+import engine.SnapshotGuard;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Append-only record of what an {@link Inventory} holds, kept next to the
+ * item files so it is backed up and restored with them.
+ * <p>
+ * Every add and remove appends one small record; nothing is ever rewritten
+ * except by {@link #clear()}. Loading maps the whole file once and replays the
+ * records in memory. A record cut short by a crash is ignored. The kind is
+ * the concrete item type ({@code obtainable}, {@code retrievable},
+ * {@code scroll} or {@code letter}), so reloading rebuilds the same class.
+ * <p>
+ * After a snapshot restore the manifest may still be hard-linked into the
+ * backup, so appends go through {@link SnapshotGuard} first.
+ * <pre>
+ * ADD:      [1][kind][id][label][fileName]   (strings as u16 length + UTF-8)
+ * REMOVE:   [2][id]
+ * ADD_BLOB: [3][kind][id][label][fileName][blob]
+ * </pre>
+ */
+final class InventoryManifest {
+
+    static final String FILE_NAME = ".inventory.manifest";
+
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final byte ADD_BLOB = 3;
+
+    record Record(String kind, String id, String label, String fileName, String blob) {
+    }
+
+    private final Path file;
+
+    InventoryManifest(Path basePath) {
+        this.file = basePath.resolve(FILE_NAME);
+    }
+
+    void appendAdd(Record record) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(record.blob().isEmpty() ? ADD : ADD_BLOB);
+        writeString(out, record.kind());
+        writeString(out, record.id());
+        writeString(out, record.label());
+        writeString(out, record.fileName());
+        if (!record.blob().isEmpty())
+            writeString(out, record.blob());
+        append(bytes.toByteArray());
+    }
+
+    void appendRemove(String id) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(REMOVE);
+        writeString(out, id);
+        append(bytes.toByteArray());
+    }
+
+    void clear() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Replays the manifest and returns the surviving records keyed by id, in
+     * the order they were added.
+     */
+    Map<String, Record> load() throws IOException {
+        return load(file);
+    }
+
+    static Map<String, Record> load(Path manifestFile) throws IOException {
+        if (!Files.exists(manifestFile))
+            return new LinkedHashMap<>();
+
+        try (FileChannel channel = FileChannel.open(manifestFile, StandardOpenOption.READ)) {
+            return parse(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Replays manifest bytes read from somewhere else, e.g. a backup archive.
+     */
+    static Map<String, Record> parse(ByteBuffer buffer) throws IOException {
+        Map<String, Record> records = new LinkedHashMap<>();
+
+        while (buffer.hasRemaining()) {
+            int start = buffer.position();
+            try {
+                byte op = buffer.get();
+                if (op == ADD || op == ADD_BLOB) {
+                    Record r = new Record(readString(buffer), readString(buffer),
+                            readString(buffer), readString(buffer),
+                            op == ADD_BLOB ? readString(buffer) : "");
+                    records.put(r.id(), r);
+                } else if (op == REMOVE) {
+                    records.remove(readString(buffer));
+                } else {
+                    throw new IOException("Unknown record type " + op + " at offset " + start);
+                }
+            } catch (BufferUnderflowException e) {
+                break; // torn tail from an interrupted append
+            }
+        }
+        return records;
+    }
+
+    private void append(byte[] record) throws IOException {
+        Files.createDirectories(file.getParent());
+        SnapshotGuard.beforeWrite(file);
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF)
+            throw new IOException("Manifest string too long: " + bytes.length + " bytes");
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,119 @@
+package storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide cache of stored item contents, keyed by item path.
+ * <p>
+ * An entry stays valid for as long as the file's modification time and size
+ * are unchanged, so re-reading a letter or scroll costs a single stat. Small
+ * files are read into memory, larger ones are memory-mapped, and in both
+ * cases the bytes are only decoded into lines the first time they are asked
+ * for. The least recently used entries are dropped beyond {@link #MAX_ENTRIES}.
+ */
+final class ItemContentCache {
+
+    private static final int MAX_ENTRIES = 64;
+    private static final long MAP_THRESHOLD = 64 * 1024;
+
+    private static final class Entry {
+        final long modified;
+        final long size;
+        final ByteBuffer content;
+        String[] lines;
+
+        Entry(long modified, long size, ByteBuffer content) {
+            this.modified = modified;
+            this.size = size;
+            this.content = content;
+        }
+
+        synchronized String[] lines() {
+            if (lines == null)
+                lines = splitLines(StandardCharsets.UTF_8.decode(content.duplicate()));
+            return lines;
+        }
+    }
+
+    private static final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Path, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private ItemContentCache() {
+    }
+
+    /**
+     * Returns the lines of {@code file}, the same way {@link Files#readAllLines(Path)}
+     * would. The returned array is shared; callers must not modify it.
+     */
+    static String[] lines(Path file) throws IOException {
+        Path key = file.toAbsolutePath().normalize();
+        BasicFileAttributes attrs = Files.readAttributes(key, BasicFileAttributes.class);
+        long modified = attrs.lastModifiedTime().toMillis();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+
+        if (entry == null || entry.modified != modified || entry.size != attrs.size()) {
+            entry = new Entry(modified, attrs.size(), load(key, attrs.size()));
+            synchronized (entries) {
+                entries.put(key, entry);
+            }
+        }
+        return entry.lines();
+    }
+
+    static void invalidate(Path file) {
+        synchronized (entries) {
+            entries.remove(file.toAbsolutePath().normalize());
+        }
+    }
+
+    private static ByteBuffer load(Path file, long size) throws IOException {
+        if (size < MAP_THRESHOLD)
+            return ByteBuffer.wrap(Files.readAllBytes(file));
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private static String[] splitLines(CharBuffer text) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        int length = text.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = text.get(i);
+            if (c != '\n' && c != '\r')
+                continue;
+
+            lines.add(text.subSequence(start, i).toString());
+            if (c == '\r' && i + 1 < length && text.get(i + 1) == '\n')
+                i++;
+            start = i + 1;
+        }
+
+        if (start < length)
+            lines.add(text.subSequence(start, length).toString());
+
+        return lines.toArray(new String[0]);
+    }
+}
@@ -0,0 +1,423 @@
+package storage;
+
+import utilities.Loggable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded log-structured key-value store.
+ * <p>
+ * Values are appended to numbered segment files ({@code 1.seg}, {@code 2.seg},
+ * ...) and an in-memory hash index maps each key to the position of its
+ * latest value, so {@link #get(String)} is one positional read and
+ * {@link #put(String, byte[])} one append. The index is rebuilt at open by
+ * scanning the segments in order; a record cut short by a crash ends the scan
+ * and is truncated away.
+ * <p>
+ * Several game processes may share a store. Every operation holds a file lock
+ * on {@code .lock} and first catches up with what other processes wrote: new
+ * segments and segment tails past the last scanned position are scanned into
+ * the index. The lock file holds a header with a compaction epoch and the
+ * newest segment id, so catching up never has to list the directory: a new
+ * id means another process rolled over, and a new epoch means it compacted,
+ * replacing segment files, in which case the index is rebuilt instead.
+ * <p>
+ * Overwritten values stay on disk until a background compaction rewrites the
+ * live values of all closed segments into the newest of them and deletes the
+ * rest. Compaction starts once dead bytes outweigh live ones, and runs under
+ * the same lock.
+ * <pre>
+ * record: [u32 crc][u16 key length][u32 value length][key UTF-8][value]
+ * .lock:  [u64 compaction epoch][u32 newest segment id]
+ * </pre>
+ */
+public class LogStore implements Loggable {
+
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String LOCK_FILE = ".lock";
+    private static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Integer.BYTES;
+    private static final int LOCK_HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final long SEGMENT_SIZE = 4L * 1024 * 1024;
+    private static final long COMPACT_MIN_DEAD_BYTES = 1024 * 1024;
+
+    private static final Map<Path, LogStore> OPEN = new ConcurrentHashMap<>();
+
+    private record Header(long epoch, int lastSegment) {
+    }
+
+    private record Location(int segment, long valueOffset, int valueLength, int recordSize) {
+    }
+
+    @FunctionalInterface
+    private interface LockedOperation<T> {
+        T apply() throws IOException;
+    }
+
+    private final Path dir;
+    private final FileChannel lockChannel;
+    private final Map<String, Location> index = new HashMap<>();
+    private final TreeMap<Integer, FileChannel> segments = new TreeMap<>();
+    private final Map<Integer, Long> scanned = new HashMap<>();
+    private final ExecutorService compactor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "logstore-compactor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+    private int activeSegment;
+    private long totalBytes;
+    private long liveBytes;
+    private long epoch = -1;
+    private boolean compacting;
+
+    /**
+     * Returns the store for {@code dir}, opening it on first use. Every caller
+     * in the process shares one instance per directory.
+     */
+    public static LogStore open(Path dir) throws IOException {
+        Path key = dir.toAbsolutePath().normalize();
+        try {
+            return OPEN.computeIfAbsent(key, d -> {
+                try {
+                    return new LogStore(d);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private LogStore(Path dir) throws IOException {
+        this.dir = dir;
+        Files.createDirectories(dir);
+        this.lockChannel = FileChannel.open(dir.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        locked(() -> {
+            // Left behind by a compaction that did not finish; the inputs are still intact
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX + ".compact")) {
+                for (Path file : stream)
+                    Files.delete(file);
+            }
+            return null;
+        });
+        log("Opened " + dir + ": " + index.size() + " keys in " + segments.size() + " segment(s)");
+    }
+
+    /**
+     * Returns the latest value stored under {@code key}, or null.
+     */
+    public byte[] get(String key) throws IOException {
+        return locked(() -> {
+            Location location = index.get(key);
+            if (location == null)
+                return null;
+
+            ByteBuffer value = ByteBuffer.allocate(location.valueLength());
+            readFully(segments.get(location.segment()), value, location.valueOffset());
+            return value.array();
+        });
+    }
+
+    public boolean contains(String key) throws IOException {
+        return locked(() -> index.containsKey(key));
+    }
+
+    /**
+     * Appends {@code value} under {@code key} and syncs it to disk.
+     */
+    public void put(String key, byte[] value) throws IOException {
+        locked(() -> {
+            if (segments.get(activeSegment).size() >= SEGMENT_SIZE)
+                openSegment(activeSegment + 1);
+
+            FileChannel channel = segments.get(activeSegment);
+            long position = channel.size();
+            ByteBuffer record = encode(key, value);
+            int recordSize = record.remaining();
+
+            while (record.hasRemaining())
+                channel.write(record, position + (recordSize - record.remaining()));
+            channel.force(false);
+            scanned.put(activeSegment, position + recordSize);
+
+            Location previous = index.put(key, new Location(activeSegment,
+                    position + recordSize - value.length, value.length, recordSize));
+            totalBytes += recordSize;
+            liveBytes += recordSize - (previous != null ? previous.recordSize() : 0);
+
+            maybeCompact();
+            return null;
+        });
+    }
+
+    private void maybeCompact() {
+        long deadBytes = totalBytes - liveBytes;
+        if (compacting || deadBytes < COMPACT_MIN_DEAD_BYTES || deadBytes <= liveBytes)
+            return;
+
+        compacting = true;
+        compactor.execute(() -> {
+            try {
+                locked(this::compact);
+            } catch (IOException e) {
+                log("Compaction failed: " + e.getMessage());
+            } finally {
+                synchronized (this) {
+                    compacting = false;
+                }
+            }
+        });
+    }
+
+    /**
+     * Rewrites the live values of every closed segment into a new file that
+     * replaces the newest closed segment, so segment order still reflects
+     * value age if the process dies halfway. Runs under the store lock, so
+     * no other process reads or appends to the segments meanwhile.
+     */
+    private Void compact() throws IOException {
+        openSegment(activeSegment + 1);
+        TreeMap<Integer, FileChannel> inputs = new TreeMap<>(segments.headMap(activeSegment));
+        int target = inputs.lastKey();
+
+        Path tmp = dir.resolve(target + SEGMENT_SUFFIX + ".compact");
+        Map<String, Location> moved = new HashMap<>();
+        long written = 0;
+
+        long reclaimed = 0;
+        for (FileChannel input : inputs.values())
+            reclaimed += input.size();
+
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            for (var entry : index.entrySet()) {
+                Location old = entry.getValue();
+                ByteBuffer value = ByteBuffer.allocate(old.valueLength());
+                readFully(inputs.get(old.segment()), value, old.valueOffset());
+
+                ByteBuffer record = encode(entry.getKey(), value.array());
+                int recordSize = record.remaining();
+                while (record.hasRemaining())
+                    written += out.write(record);
+
+                moved.put(entry.getKey(), new Location(target,
+                        written - old.valueLength(), old.valueLength(), recordSize));
+            }
+            out.force(true);
+        } catch (IOException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+
+        Files.move(tmp, segmentPath(target), StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING);
+        FileChannel compacted = FileChannel.open(segmentPath(target),
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        index.putAll(moved);
+        totalBytes += written - reclaimed;
+
+        // From here on nothing in the index points at the old files
+        for (var entry : inputs.entrySet()) {
+            segments.remove(entry.getKey());
+            scanned.remove(entry.getKey());
+            entry.getValue().close();
+            if (entry.getKey() != target)
+                Files.deleteIfExists(segmentPath(entry.getKey()));
+        }
+        segments.put(target, compacted);
+        scanned.put(target, written);
+
+        // Tells every other process its channels and index are stale
+        writeHeader(++epoch, segments.lastKey());
+
+        log("Compacted " + inputs.size() + " segment(s) into " + target + SEGMENT_SUFFIX
+                + ", " + (reclaimed - written) + " bytes reclaimed");
+        return null;
+    }
+
+    /**
+     * Runs {@code operation} holding the store lock, after catching up with
+     * other processes. The monitor is taken first because a JVM may not hold
+     * two overlapping locks on one file.
+     */
+    private synchronized <T> T locked(LockedOperation<T> operation) throws IOException {
+        try (FileLock ignored = lockChannel.lock()) {
+            refresh();
+            return operation.apply();
+        }
+    }
+
+    private void refresh() throws IOException {
+        Header header = readHeader();
+        if (header.epoch() != epoch) {
+            epoch = header.epoch();
+            reload();
+            if (segments.lastKey() > header.lastSegment())
+                writeHeader(epoch, segments.lastKey());
+            return;
+        }
+
+        // Segments another process rolled over to
+        for (int id = segments.lastKey() + 1; id <= header.lastSegment(); id++)
+            segments.put(id, FileChannel.open(segmentPath(id), StandardOpenOption.READ, StandardOpenOption.WRITE));
+
+        // Only the segment that was active and newer ones can have grown
+        for (var entry : segments.tailMap(activeSegment).entrySet()) {
+            if (entry.getValue().size() != scanned.getOrDefault(entry.getKey(), 0L))
+                scan(entry.getKey(), entry.getValue());
+        }
+        activeSegment = segments.lastKey();
+    }
+
+    private void reload() throws IOException {
+        for (FileChannel channel : segments.values())
+            channel.close();
+        segments.clear();
+        scanned.clear();
+        index.clear();
+        totalBytes = 0;
+        liveBytes = 0;
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+            for (Path file : stream) {
+                int id = segmentId(file);
+                if (id > 0)
+                    segments.put(id, FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE));
+                else
+                    log("Ignoring stray file in store: " + file.getFileName());
+            }
+        }
+
+        for (var entry : segments.entrySet())
+            scan(entry.getKey(), entry.getValue());
+
+        if (segments.isEmpty())
+            openSegment(1);
+        activeSegment = segments.lastKey();
+    }
+
+    /**
+     * Indexes the records of segment {@code id} past the position scanned so
+     * far. Only called under the store lock, so a short or damaged tail is
+     * left over from a crash, not an append in progress.
+     */
+    private void scan(int id, FileChannel channel) throws IOException {
+        long size = channel.size();
+        long position = scanned.getOrDefault(id, 0L);
+        long start = position;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+
+        while (position + HEADER_SIZE <= size) {
+            header.clear();
+            readFully(channel, header, position);
+            header.flip();
+            int crc = header.getInt();
+            int keyLength = Short.toUnsignedInt(header.getShort());
+            int valueLength = header.getInt();
+
+            long recordSize = (long) HEADER_SIZE + keyLength + valueLength;
+            if (valueLength < 0 || position + recordSize > size)
+                break;
+
+            ByteBuffer body = ByteBuffer.allocate(keyLength + valueLength);
+            readFully(channel, body, position + HEADER_SIZE);
+
+            CRC32 checksum = new CRC32();
+            checksum.update(header.array(), Integer.BYTES, HEADER_SIZE - Integer.BYTES);
+            checksum.update(body.array());
+            if ((int) checksum.getValue() != crc)
+                break;
+
+            String key = new String(body.array(), 0, keyLength, StandardCharsets.UTF_8);
+            Location previous = index.put(key, new Location(id,
+                    position + HEADER_SIZE + keyLength, valueLength, (int) recordSize));
+            liveBytes += recordSize - (previous != null ? previous.recordSize() : 0);
+            position += recordSize;
+        }
+
+        if (position < size) {
+            log("Truncating damaged tail of segment " + id + " at " + position);
+            channel.truncate(position);
+        }
+        totalBytes += position - start;
+        scanned.put(id, position);
+    }
+
+    private Header readHeader() throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LOCK_HEADER_SIZE);
+        while (buffer.hasRemaining()) {
+            if (lockChannel.read(buffer, buffer.position()) < 0)
+                return new Header(0, 0);
+        }
+        return new Header(buffer.getLong(0), buffer.getInt(Long.BYTES));
+    }
+
+    private void writeHeader(long epoch, int lastSegment) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(LOCK_HEADER_SIZE).putLong(0, epoch).putInt(Long.BYTES, lastSegment);
+        while (buffer.hasRemaining())
+            lockChannel.write(buffer, buffer.position());
+        lockChannel.force(false);
+    }
+
+    private static ByteBuffer encode(String key, byte[] value) {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > 0xFFFF)
+            throw new IllegalArgumentException("Key too long: " + key);
+
+        ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + keyBytes.length + value.length);
+        record.putInt(0).putShort((short) keyBytes.length).putInt(value.length)
+                .put(keyBytes).put(value);
+
+        CRC32 checksum = new CRC32();
+        checksum.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+        record.putInt(0, (int) checksum.getValue());
+        return record.flip();
+    }
+
+    private void openSegment(int id) throws IOException {
+        segments.put(id, FileChannel.open(segmentPath(id), StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE));
+        scanned.put(id, 0L);
+        activeSegment = id;
+        writeHeader(epoch, id);
+    }
+
+    /**
+     * Returns the id encoded in a segment file name, or -1 if it is not one.
+     */
+    private static int segmentId(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private Path segmentPath(int id) {
+        return dir.resolve(id + SEGMENT_SUFFIX);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position + buffer.position());
+            if (read < 0)
+                throw new IOException("Unexpected end of segment");
+        }
+    }
+}
@@ -11,6 +11,8 @@ public class Storage implements Loggable {
     private String fileName; // full path inside the bag
     public Path source;
     public Path itemPath;
+    private BlobStore blobStore;
+    private String blobHash; // content hash when the item is backed by a BlobStore
 
     /**
      * Copy the source file into the bag directory using a specified fileName.
@@ -28,6 +30,66 @@ public class Storage implements Loggable {
         this.source = source;
     }
 
+    private Storage(Path itemPath, BlobStore blobStore, String blobHash) {
+        this.fileName = itemPath.getFileName().toString();
+        this.source = itemPath;
+        this.itemPath = itemPath;
+        this.blobStore = blobStore;
+        this.blobHash = blobHash;
+    }
+
+    /**
+     * Wraps a file that is already stored in a bag, e.g. when an inventory is
+     * rebuilt from its manifest after a restore.
+     */
+    public static Storage ofStoredItem(Path itemPath) {
+        return new Storage(itemPath, null, null);
+    }
+
+    /**
+     * Same as {@link #ofStoredItem(Path)} for an item whose content is a
+     * reference into {@code blobStore}; deleting it releases that reference.
+     */
+    public static Storage ofStoredItem(Path itemPath, BlobStore blobStore, String blobHash) {
+        return new Storage(itemPath, blobStore, blobHash);
+    }
+
+    public String getBlobHash() {
+        return blobHash;
+    }
+
+    /**
+     * Stores the item as a reference into a shared {@link BlobStore} instead
+     * of a private copy.
+     */
+    public void storeItem(Path bagBasePath, BlobStore blobStore) {
+        this.itemPath = bagBasePath.resolve(fileName);
+
+        try {
+            Path parentDir = this.itemPath.getParent();
+            if (parentDir != null && !Files.exists(parentDir)) {
+                Files.createDirectories(parentDir);
+                log("Created directory: " + parentDir);
+            }
+
+            String hash = blobStore.retain(source);
+            try {
+                blobStore.link(hash, this.itemPath);
+            } catch (IOException e) {
+                blobStore.release(hash);
+                throw e;
+            }
+
+            this.blobStore = blobStore;
+            this.blobHash = hash;
+            log("Stored item: " + this.itemPath + " -> blob " + hash);
+
+        } catch (IOException e) {
+            log("Failed to store item: " + this.itemPath + " | Error: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
     public void storeItem(Path bagBasePath) {
         this.itemPath = bagBasePath.resolve(fileName); // full destination path
 
@@ -51,12 +113,13 @@ public class Storage implements Loggable {
     /**
      * Retrieve the contents of the item as a String array.
      * Returns null if file does not exist or cannot be read.
+     * Contents are served from {@link ItemContentCache} while the file is unchanged.
      */
     public String[] retrieveItem() {
         if (itemPath != null && Files.exists(itemPath)) {
             try {
                 log("Retrieved item: " + itemPath);
-                return Files.readAllLines(itemPath).toArray(new String[0]);
+                return ItemContentCache.lines(itemPath).clone();
             } catch (IOException e) {
                 log("Failed to read item: " + itemPath + " | Error: " + e.getMessage());
                 e.printStackTrace();
@@ -71,8 +134,14 @@ public class Storage implements Loggable {
         if (itemPath != null) {
             try {
                 Files.deleteIfExists(itemPath);
+                ItemContentCache.invalidate(itemPath);
                 log("Deleted item: " + itemPath);
                 itemPath = null;
+
+                if (blobStore != null && blobHash != null) {
+                    blobStore.release(blobHash);
+                    blobHash = null;
+                }
             } catch (IOException e) {
                 log("Failed to delete item: " + itemPath + " | Error: " + e.getMessage());
             }
@@ -4,25 +4,101 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Registry of the ASCII art under {@code resources/ascii}.
+ * <p>
+ * Every asset is read at most once. {@link #preload()} reads them all on a
+ * background thread at startup; a getter that runs before its asset is in
+ * simply waits for (or does) that one read. Getters hand out copies, so the
+ * cached lines can be shared; the centered renderings built from them are
+ * cached by {@link CLIUtils}.
+ */
 public class AsciiArt {
 
-    private static String[] readAsciiFromFile(String resourcePath) {
+    public enum Art {
+        TITLE_DUNGEON("terminal_dungeon.txt"),
+        LEVEL_1_SQUIRE("level_1_squire.txt"),
+        LEVEL_2_APPRENTICE_KNIGHT("level_2_apprentice_knight.txt"),
+        LEVEL_3_SCOUT_KNIGHT("level_3_scout_knight.txt"),
+        LEVEL_4_WARRIOR_KNIGHT("level_4_warrior_knight.txt"),
+        LEVEL_5_GUARDIAN_KNIGHT("level_5_guardian_knight.txt"),
+        LEVEL_5_ARCANE_KNIGHT("level_5_arcane_knight.txt"),
+        LEVEL_6_PALADIN("level_6_paladin.txt"),
+        LEVEL_6_GRANDMASTER_KNIGHT("level_6_grandmaster_knight.txt"),
+        LEVEL_7_ARCANE_KNIGHT("level_7_arcane_knight.txt"),
+        GAME_OVER("game_over.txt");
+
+        private final String resourcePath;
+
+        Art(String fileName) {
+            this.resourcePath = "ascii/" + fileName;
+        }
+    }
+
+    private static final String[] LEVEL_HEADER = {
+            "::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: :::"
+    };
+
+    private static final Map<Art, String[]> loaded = new ConcurrentHashMap<>();
+    private static final AtomicBoolean preloadStarted = new AtomicBoolean();
+
+    /**
+     * Starts reading every asset, and looking up the terminal width, on a
+     * daemon thread. Safe to call more than once.
+     */
+    public static void preload() {
+        if (!preloadStarted.compareAndSet(false, true))
+            return;
+
+        Thread loader = new Thread(() -> {
+            for (Art art : Art.values())
+                lines(art);
+            // Also pays the one-time terminal probe setup before the first centered frame needs it
+            int width = CLIUtils.getTerminalWidth();
+            Loggable.log("AsciiArt", "Preloaded " + loaded.size() + " ASCII art assets, terminal width " + width);
+        }, "ascii-preload");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    /**
+     * Returns a copy of {@code art}'s lines, reading the resource on first use.
+     */
+    public static String[] get(Art art) {
+        return lines(art).clone();
+    }
+
+    // Shared cached array; never hand it out directly. Error placeholders are
+    // not cached, so a later call tries the resource again.
+    private static String[] lines(Art art) {
         try {
-            // Fallback to reading from JAR
-            try (InputStream is = AsciiArt.class.getResourceAsStream("/" + resourcePath)) {
-                if (is == null) {
-                    return new String[] { "Error: Could not find resource: " + resourcePath };
-                }
-                BufferedReader reader = new BufferedReader(new InputStreamReader(is));
-                List<String> lines = reader.lines().toList();
-                return processLines(lines);
-            }
+            String[] lines = loaded.computeIfAbsent(art, a -> readAsciiFromFile(a.resourcePath));
+            return lines != null ? lines : new String[] { "Error: Could not find resource: " + art.resourcePath };
+        } catch (UncheckedIOException e) {
+            e.printStackTrace();
+            return new String[] { "Error: Could not read ASCII art from " + art.resourcePath };
+        }
+    }
 
+    /** Returns null if the resource does not exist. */
+    private static String[] readAsciiFromFile(String resourcePath) {
+        // Fallback to reading from JAR
+        try (InputStream is = AsciiArt.class.getResourceAsStream("/" + resourcePath)) {
+            if (is == null) {
+                return null;
+            }
+            BufferedReader reader = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
+            List<String> lines = reader.lines().toList();
+            return processLines(lines);
         } catch (IOException e) {
-            e.printStackTrace();
-            return new String[] { "Error: Could not read ASCII art from " + resourcePath };
+            throw new UncheckedIOException(e);
         }
     }
 
@@ -38,53 +114,51 @@ public class AsciiArt {
     }
 
     public static String[] getTitleDungeon() {
-        return readAsciiFromFile("ascii/terminal_dungeon.txt");
+        return get(Art.TITLE_DUNGEON);
     }
 
     public static String[] getLevelHeader() {
-        return new String[] {
-                "::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: ::: :::"
-        };
+        return LEVEL_HEADER.clone();
     }
 
     public static String[] getLevel1Squire() {
-        return readAsciiFromFile("ascii/level_1_squire.txt");
+        return get(Art.LEVEL_1_SQUIRE);
     }
 
     public static String[] getLevel2ApprenticeKnight() {
-        return readAsciiFromFile("ascii/level_2_apprentice_knight.txt");
+        return get(Art.LEVEL_2_APPRENTICE_KNIGHT);
     }
 
     public static String[] getLevel3ScoutKnight() {
-        return readAsciiFromFile("ascii/level_3_scout_knight.txt");
+        return get(Art.LEVEL_3_SCOUT_KNIGHT);
     }
 
     public static String[] getLevel4WarriorKnight() {
-        return readAsciiFromFile("ascii/level_4_warrior_knight.txt");
+        return get(Art.LEVEL_4_WARRIOR_KNIGHT);
     }
 
     public static String[] getLevel5GuardianKnight() {
-        return readAsciiFromFile("ascii/level_5_guardian_knight.txt");
+        return get(Art.LEVEL_5_GUARDIAN_KNIGHT);
     }
 
     public static String[] getLevel5ArcaneKnight() {
-        return readAsciiFromFile("ascii/level_5_arcane_knight.txt");
+        return get(Art.LEVEL_5_ARCANE_KNIGHT);
     }
 
     public static String[] getLevel6Paladin() {
-        return readAsciiFromFile("ascii/level_6_paladin.txt");
+        return get(Art.LEVEL_6_PALADIN);
     }
 
     public static String[] getLevel6GrandmasterKnight() {
-        return readAsciiFromFile("ascii/level_6_grandmaster_knight.txt");
+        return get(Art.LEVEL_6_GRANDMASTER_KNIGHT);
     }
 
     public static String[] getLevel7ArcaneKnight() {
-        return readAsciiFromFile("ascii/level_7_arcane_knight.txt");
+        return get(Art.LEVEL_7_ARCANE_KNIGHT);
     }
 
     public static String[] getGameOver() {
-        return readAsciiFromFile("ascii/game_over.txt");
+        return get(Art.GAME_OVER);
     }
 
 }
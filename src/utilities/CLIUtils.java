@@ -1,7 +1,11 @@
 package utilities;
 
 import java.io.IOException;
-import java.util.Scanner;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
 
 /**
  * Utility class providing enhanced console/terminal features such as
@@ -10,7 +14,92 @@ import java.util.Scanner;
  */
 public class CLIUtils implements Loggable {
 
+    /**
+     * How the pauses and effects are paced. NORMAL runs them in real time;
+     * INSTANT skips every sleep and key wait, for scripted and headless runs;
+     * FAST_FORWARD divides every sleep by {@link #setFastForward(double)};
+     * SKIPPABLE is real time, but pressing Enter during a typewriter line
+     * prints the rest of it at once.
+     * <p>
+     * Picked from the {@code td.render} system property or the
+     * {@code TD_RENDER} environment variable, NORMAL otherwise.
+     */
+    public enum RenderMode {
+        NORMAL,
+        INSTANT,
+        FAST_FORWARD,
+        SKIPPABLE
+    }
+
+    private static final double DEFAULT_FAST_FORWARD = 10.0;
+
+    // IDE consoles ignore "clear screen": move to the top-left, blank roughly
+    // 30 lines of 80 columns and move back. Built once, it never changes.
+    private static final String IDE_CLEAR_FRAME = "\033[H" + (" ".repeat(80) + "\n").repeat(30) + "\033[H";
+
+    private static final int DEFAULT_TERMINAL_WIDTH = 125;
+
+    // How often a width lookup may ask the terminal again to notice resizes
+    private static final long WIDTH_PROBE_INTERVAL_NANOS = 250_000_000L;
+
     private static Integer cachedTerminalWidth = null;
+    private static boolean widthProbed = false;
+    private static long lastWidthProbe;
+    private static final List<IntConsumer> widthListeners = new CopyOnWriteArrayList<>();
+
+    private record CenteredFrame(List<String> lines, int paddingTop, int paddingBottom, boolean bordered,
+            int width) {
+    }
+
+    private static final int CENTERED_FRAME_CACHE_SIZE = 32;
+    // Least recently printed frames go first
+    private static final Map<CenteredFrame, String> centeredFrames = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<CenteredFrame, String> eldest) {
+            return size() > CENTERED_FRAME_CACHE_SIZE;
+        }
+    };
+
+    static {
+        // Frames for the old width can never be hit again
+        addTerminalWidthListener(width -> {
+            synchronized (centeredFrames) {
+                centeredFrames.clear();
+            }
+        });
+    }
+    private static volatile RenderMode renderMode = initialRenderMode();
+    private static volatile double fastForward = DEFAULT_FAST_FORWARD;
+
+    public static RenderMode getRenderMode() {
+        return renderMode;
+    }
+
+    public static void setRenderMode(RenderMode mode) {
+        renderMode = mode;
+    }
+
+    /**
+     * Sets how many times faster than real time FAST_FORWARD runs.
+     */
+    public static void setFastForward(double multiplier) {
+        if (multiplier <= 0)
+            throw new IllegalArgumentException("Fast-forward multiplier must be positive: " + multiplier);
+        fastForward = multiplier;
+    }
+
+    private static RenderMode initialRenderMode() {
+        String configured = System.getProperty("td.render", System.getenv("TD_RENDER"));
+        if (configured == null || configured.isBlank())
+            return RenderMode.NORMAL;
+
+        try {
+            return RenderMode.valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown render mode '" + configured + "', using NORMAL");
+            return RenderMode.NORMAL;
+        }
+    }
 
     /**
      * Clears the terminal screen using the best available method.
@@ -35,28 +124,13 @@ public class CLIUtils implements Loggable {
                     new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
                 } else {
                     // Unix/Linux/macOS
-                    System.out.print("\033[H\033[2J");
-                    System.out.flush();
+                    TerminalWriter.print("\033[H\033[2J");
+                    TerminalWriter.flush();
                 }
             } else {
                 // IDE terminal (IntelliJ, Eclipse, VS Code)
-                int terminalHeight = 30; // approximate visible lines
-                String blankLine = " ".repeat(80); // assume 80 chars per line
-                StringBuilder sb = new StringBuilder();
-
-                // Move cursor to top-left
-                sb.append("\033[H");
-
-                // Overwrite visible area
-                for (int i = 0; i < terminalHeight; i++) {
-                    sb.append(blankLine).append("\n");
-                }
-
-                // Move cursor back to top-left
-                sb.append("\033[H");
-
-                System.out.print(sb);
-                System.out.flush();
+                TerminalWriter.print(IDE_CLEAR_FRAME);
+                TerminalWriter.flush();
             }
         } catch (Exception e) {
             // Fallback: just print multiple newlines
@@ -65,14 +139,23 @@ public class CLIUtils implements Loggable {
     }
 
     /**
-     * Sleeps the current thread for the specified number of milliseconds.
+     * Sleeps the current thread for the specified number of milliseconds,
+     * scaled by the {@link RenderMode}.
      * Will restore the interrupt flag if interrupted.
      *
      * @param ms number of milliseconds to sleep
      */
     public static void sleep(int ms) {
+        long scaled = switch (renderMode) {
+            case INSTANT -> 0;
+            case FAST_FORWARD -> (long) (ms / fastForward);
+            case NORMAL, SKIPPABLE -> ms;
+        };
+        if (scaled <= 0)
+            return;
+
         try {
-            Thread.sleep(ms);
+            Thread.sleep(scaled);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
@@ -94,16 +177,46 @@ public class CLIUtils implements Loggable {
             int width = getTerminalWidth();
             if (!(output.length() >= width)) {
                 int pad = (width - output.length()) / 2;
-                IO.print(" ".repeat(pad));
+                TerminalWriter.print(" ".repeat(pad));
             }
         }
 
+        // Without a visible pause between characters the whole line is one frame
+        if (renderMode == RenderMode.INSTANT || delay <= 0) {
+            TerminalWriter.println(output);
+            TerminalWriter.flush();
+            return;
+        }
+
+        // One frame per character; the padding goes out with the first one
         for (int i = index; i < output.length(); i++) {
-            IO.print(output.charAt(i));
+            if (renderMode == RenderMode.SKIPPABLE && consumePendingInput()) {
+                TerminalWriter.print(output.substring(i));
+                break;
+            }
+            TerminalWriter.print(output.charAt(i));
+            TerminalWriter.flush();
             sleep(delay);
         }
 
-        System.out.println();
+        TerminalWriter.println();
+        TerminalWriter.flush();
+    }
+
+    /**
+     * Swallows whatever the player typed so far. Returns whether there was
+     * anything, i.e. whether they pressed Enter.
+     */
+    private static boolean consumePendingInput() {
+        try {
+            if (System.in.available() == 0)
+                return false;
+            while (System.in.available() > 0)
+                System.in.read();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
     }
 
     public static void typewriter(String output, int delay) {
@@ -116,10 +229,7 @@ public class CLIUtils implements Loggable {
      * @param text the header title
      */
     public static void header(String text) {
-        String levelHeader = AsciiArt.getLevelHeader()[0];
-        System.out.println(center(levelHeader));
-        System.out.println(center(text));
-        System.out.println(center(levelHeader));
+        printCenteredFrame(new String[] { text }, 0, 0, true);
     }
 
     /**
@@ -128,12 +238,7 @@ public class CLIUtils implements Loggable {
      * @param text the header title
      */
     public static void header(String[] text) {
-        String levelHeader = AsciiArt.getLevelHeader()[0];
-        System.out.println(center(levelHeader));
-        for (String line : text) {
-            System.out.println(center(line));
-        }
-        System.out.println(center(levelHeader));
+        printCenteredFrame(text, 0, 0, true);
     }
 
     public static void header(String[] text, int padding) {
@@ -141,18 +246,39 @@ public class CLIUtils implements Loggable {
     }
 
     public static void header(String[] text, int paddingTop, int paddingBottom) {
-        String levelHeader = AsciiArt.getLevelHeader()[0];
-        System.out.println(center(levelHeader));
-        for (int p = 0; p < paddingTop; p++) {
-            IO.println();
-        }
-        for (String line : text) {
-            System.out.println(center(line));
+        printCenteredFrame(text, paddingTop, paddingBottom, true);
+    }
+
+    /**
+     * Writes {@code lines} centered, optionally between two border lines, as
+     * one frame. The rendered frame is cached per terminal width, so printing
+     * the same header or art again is a lookup and a single write.
+     */
+    private static void printCenteredFrame(String[] lines, int paddingTop, int paddingBottom, boolean bordered) {
+        // Width first: never ask for it while holding the cache lock
+        int width = getTerminalWidth();
+        CenteredFrame key = new CenteredFrame(List.of(lines), paddingTop, paddingBottom, bordered, width);
+
+        String frame;
+        synchronized (centeredFrames) {
+            frame = centeredFrames.computeIfAbsent(key, CLIUtils::renderCentered);
         }
-        for (int p = 0; p < paddingBottom; p++) {
-            IO.println();
+        TerminalWriter.print(frame);
+        TerminalWriter.flush();
+    }
+
+    private static String renderCentered(CenteredFrame key) {
+        String separator = System.lineSeparator();
+        String border = key.bordered() ? center(AsciiArt.getLevelHeader()[0], key.width()) + separator : "";
+
+        StringBuilder frame = new StringBuilder(border);
+        frame.append(separator.repeat(key.paddingTop()));
+        for (String line : key.lines()) {
+            frame.append(center(line, key.width())).append(separator);
         }
-        System.out.println(center(levelHeader));
+        frame.append(separator.repeat(key.paddingBottom()));
+        frame.append(border);
+        return frame.toString();
     }
 
     /**
@@ -163,12 +289,14 @@ public class CLIUtils implements Loggable {
      * @param delay delay (in milliseconds) between each dot
      */
     public static void loading(String label, int dots, int delay) {
-        System.out.print(label);
+        TerminalWriter.print(label);
         for (int i = 0; i < dots; i++) {
-            System.out.print(".");
+            TerminalWriter.print('.');
+            TerminalWriter.flush();
             sleep(delay);
         }
-        System.out.println();
+        TerminalWriter.println();
+        TerminalWriter.flush();
     }
 
     /**
@@ -177,7 +305,8 @@ public class CLIUtils implements Loggable {
      * @param ms duration of the pause in milliseconds
      */
     public static void transition(int ms) {
-        System.out.println("\n...\n");
+        TerminalWriter.println("\n...\n");
+        TerminalWriter.flush();
         sleep(ms);
     }
 
@@ -185,12 +314,16 @@ public class CLIUtils implements Loggable {
      * Displays a message prompting the user to press Enter.
      * After input is received, clears the screen.
      * <p>
-     * Also consumes any extra buffered input.
+     * Also consumes any extra buffered input. Returns right away in
+     * {@link RenderMode#INSTANT}.
      *
      * @param message custom prompt (null for default)
      */
     public static void waitAnyKey(String message) {
-        System.out.println(message != null ? message : "Press Enter to continue...");
+        TerminalWriter.println(message != null ? message : "Press Enter to continue...");
+        TerminalWriter.flush();
+        if (renderMode == RenderMode.INSTANT)
+            return;
         try {
             do System.in.read();
             while (System.in.available() > 0);
@@ -206,55 +339,83 @@ public class CLIUtils implements Loggable {
     }
 
     /**
-     * Attempts to detect terminal width using {@code tput cols}.
+     * Returns the terminal width in characters.
      * <p>
-     * If detection fails (common in IDE terminals), a default width of 100 is used.
+     * Asks the terminal itself through {@link TerminalProbe} (no process is
+     * started), then falls back to the {@code COLUMNS} environment variable
+     * and finally to a default of 125, common in IDE consoles. The value is
+     * cached; when it came from the terminal it is probed again at most every
+     * 250 ms to follow resizes, and width listeners are told when it actually
+     * changed.
      *
      * @return terminal width in characters
      */
-    public static int getTerminalWidth() {
-        if (cachedTerminalWidth != null) {
+    public static synchronized int getTerminalWidth() {
+        long now = System.nanoTime();
+        if (cachedTerminalWidth != null
+                && (!widthProbed || now - lastWidthProbe < WIDTH_PROBE_INTERVAL_NANOS)) {
             return cachedTerminalWidth;
         }
+        lastWidthProbe = now;
+
+        int width = detectTerminalWidth();
+        Integer previous = cachedTerminalWidth;
+        cachedTerminalWidth = width;
+
+        if (previous != null && previous != width) {
+            Loggable.log(LogLevel.DEBUG, "CLIUtils", () -> "Terminal resized from " + previous + " to " + width);
+            for (IntConsumer listener : widthListeners)
+                listener.accept(width);
+        }
+        return width;
+    }
 
-        // 1. Try COLUMNS env var
+    private static int detectTerminalWidth() {
+        // 1. Ask the terminal (ioctl, no fork)
+        int probed = TerminalProbe.columns();
+        if (probed > 0) {
+            if (!widthProbed)
+                Loggable.log("CLIUtils", "Terminal width from ioctl: " + probed);
+            widthProbed = true;
+            return probed;
+        }
+        widthProbed = false;
+
+        // 2. Try COLUMNS env var
         String columnsEnv = System.getenv("COLUMNS");
         if (columnsEnv != null) {
             try {
-                cachedTerminalWidth = Integer.parseInt(columnsEnv);
-                Loggable.log("CLIUtils", "Terminal width from COLUMNS env: " + cachedTerminalWidth);
-                return cachedTerminalWidth;
+                int columns = Integer.parseInt(columnsEnv.trim());
+                Loggable.log("CLIUtils", "Terminal width from COLUMNS env: " + columns);
+                return columns;
             } catch (NumberFormatException ignored) {
             }
         }
 
-        // 2. Try stty command (Unix/Linux/macOS)
-        try {
-            Process process = new ProcessBuilder("/bin/sh", "-c", "stty size 2>/dev/null || echo 0 0").start();
-            try (Scanner scanner = new Scanner(process.getInputStream())) {
-                if (scanner.hasNextInt()) {
-                    scanner.nextInt(); // rows
-                    int cols = scanner.nextInt(); // columns
-                    if (cols > 0) {
-                        cachedTerminalWidth = cols;
-                        Loggable.log("CLIUtils","Terminal width from stty: " + cachedTerminalWidth);
-                        return cachedTerminalWidth;
-                    }
-                }
-            }
-        } catch (Exception ignored) {
-        }
-
         // 3. Fallback default
-        cachedTerminalWidth = 125;
-        Loggable.log("CLIUtils", "Using fallback terminal width: " + cachedTerminalWidth);
-        return cachedTerminalWidth;
+        Loggable.log("CLIUtils", "Using fallback terminal width: " + DEFAULT_TERMINAL_WIDTH);
+        return DEFAULT_TERMINAL_WIDTH;
     }
 
-    public static void resetTerminalWidthCache() {
+    /**
+     * Forces the next {@link #getTerminalWidth()} to ask the terminal again.
+     */
+    public static synchronized void resetTerminalWidthCache() {
         cachedTerminalWidth = null;
     }
 
+    /**
+     * Registers {@code listener} to receive the new width whenever the
+     * terminal width changes, so width-dependent caches can be rebuilt.
+     */
+    public static void addTerminalWidthListener(IntConsumer listener) {
+        widthListeners.add(listener);
+    }
+
+    public static void removeTerminalWidthListener(IntConsumer listener) {
+        widthListeners.remove(listener);
+    }
+
     /**
      * Centers a single line of text using the detected terminal width.
      * <p>
@@ -264,7 +425,10 @@ public class CLIUtils implements Loggable {
      * @return centered text with left/right padding
      */
     public static String center(String line) {
-        int width = getTerminalWidth();
+        return center(line, getTerminalWidth());
+    }
+
+    private static String center(String line, int width) {
         if (line.length() >= width) return line;
         int pad = (width - line.length()) / 2;
         int rightPad = width - line.length() - pad;
@@ -291,9 +455,7 @@ public class CLIUtils implements Loggable {
      * @param asciiArt ASCII art lines to print
      */
     public static void printCentered(String[] asciiArt) {
-        for (String line : centerAscii(asciiArt)) {
-            System.out.println(line);
-        }
+        printCenteredFrame(asciiArt, 0, 0, false);
     }
 
     /**
@@ -313,7 +475,8 @@ public class CLIUtils implements Loggable {
         if (sb.length() < width) {
             sb.append(content, 0, width - sb.length());
         }
-        System.out.println(sb);
+        TerminalWriter.println(sb);
+        TerminalWriter.flush();
     }
 
     /**
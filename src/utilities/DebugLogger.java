@@ -1,9 +1,34 @@
 package utilities;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
+import utilities.Loggable.LogLevel;
+
+/**
+ * Asynchronous debug log.
+ * <p>
+ * {@link #log(String, String)} only claims a slot in a fixed-size ring buffer
+ * and stores the message there; it never formats, locks or touches the disk.
+ * A single daemon thread drains the buffer, formats the lines and appends
+ * them to {@code logs/debug.log} through one long-lived channel, one write per
+ * batch. The file is rotated and old segments compressed by
+ * {@link RotatingLogFile}. When the buffer is full, messages are dropped and
+ * counted instead of blocking the caller, and the count is written to the log
+ * once there is room.
+ * <p>
+ * Lines below the threshold level are dropped up front. The threshold is
+ * {@code INFO} unless the {@code td.log.level} system property or the
+ * {@code TD_LOG_LEVEL} environment variable names another {@link LogLevel}.
+ */
 public class DebugLogger {
 
     private static final String LOG_DIR = "logs";
@@ -11,30 +36,95 @@ public class DebugLogger {
     private static final File logDirectory = new File(LOG_DIR);
     private static final File logFile = new File(LOG_DIR + "/" + LOG_FILE);
 
+    private static final int CAPACITY = 8192; // power of two
+    private static final int MASK = CAPACITY - 1;
+    private static final int WRITE_BATCH_BYTES = 64 * 1024;
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static volatile LogLevel threshold = initialThreshold();
+
+    private record Entry(long millis, LogLevel level, String header, String message) {
+    }
+
+    // Slot i is free for the producer claiming position p when sequences[i] == p,
+    // and holds that producer's entry once sequences[i] == p + 1
+    private static final Entry[] slots = new Entry[CAPACITY];
+    private static final AtomicLongArray sequences = new AtomicLongArray(CAPACITY);
+    private static final AtomicLong tail = new AtomicLong();
+    private static final AtomicLong dropped = new AtomicLong();
+    private static final Thread writer = new Thread(DebugLogger::runWriter, "debug-logger");
+    private static volatile boolean writerParked;
+
+    // Consumer side, guarded by the class lock
+    private static long head;
+    private static RotatingLogFile output;
+    private static final StringBuilder pendingText = new StringBuilder(WRITE_BATCH_BYTES);
+    private static long cachedSecond = Long.MIN_VALUE;
+    private static String cachedTimestamp;
+
     static {
+        for (int i = 0; i < CAPACITY; i++)
+            sequences.set(i, i);
+
         try {
             if (!logDirectory.exists())
                 logDirectory.mkdirs();
-            if (!logFile.exists())
-                logFile.createNewFile();
+            output = new RotatingLogFile(logFile.toPath());
         } catch (IOException e) {
             System.err.println("Failed to initialize log file: " + e.getMessage());
         }
+
+        writer.setDaemon(true);
+        writer.start();
+
+        Runtime.getRuntime().addShutdownHook(new Thread(DebugLogger::flush, "debug-logger-flush"));
+    }
+
+    public static boolean isEnabled(LogLevel level) {
+        return level.compareTo(threshold) >= 0;
+    }
+
+    public static LogLevel threshold() {
+        return threshold;
+    }
+
+    public static void setThreshold(LogLevel level) {
+        threshold = level;
     }
 
     // MAIN method that accepts a header
     public static void log(String header, String message) {
-        try (FileWriter fw = new FileWriter(logFile, true);
-                BufferedWriter bw = new BufferedWriter(fw);
-                PrintWriter out = new PrintWriter(bw)) {
+        log(LogLevel.INFO, header, message);
+    }
 
-            String timestamp = LocalDateTime.now()
-                    .format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
+    public static void log(LogLevel level, String header, String message) {
+        if (!isEnabled(level))
+            return;
 
-            out.println("[" + timestamp + "] [" + header + "] " + message);
+        Entry entry = new Entry(System.currentTimeMillis(), level, header, message);
 
-        } catch (IOException e) {
-            System.err.println("Logging failed: " + e.getMessage());
+        while (true) {
+            long position = tail.get();
+            int index = (int) (position & MASK);
+            long available = sequences.getAcquire(index) - position;
+
+            if (available == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    slots[index] = entry;
+                    // A volatile store, so it cannot pass the writerParked read below
+                    sequences.set(index, position + 1);
+                    if (writerParked)
+                        LockSupport.unpark(writer);
+                    return;
+                }
+            } else if (available < 0) {
+                // The writer has not caught up with a full lap of the buffer
+                dropped.incrementAndGet();
+                if (writerParked)
+                    LockSupport.unpark(writer);
+                return;
+            }
+            // Another producer claimed this position first, try the next one
         }
     }
 
@@ -42,4 +132,115 @@ public class DebugLogger {
     public static void log(String message) {
         log("GENERAL", message);
     }
+
+    /**
+     * Writes out everything logged so far; called on exit so the last lines
+     * are not lost with the daemon writer.
+     */
+    public static synchronized void flush() {
+        drain();
+    }
+
+    /**
+     * Drains until the buffer is empty, then parks until a producer publishes
+     * into it. {@code writerParked} is raised before the last look at the
+     * buffer, so a producer either sees it and unparks the writer, or has
+     * published in time for that look.
+     */
+    private static void runWriter() {
+        while (true) {
+            boolean wroteAny;
+            synchronized (DebugLogger.class) {
+                wroteAny = drain();
+            }
+            if (wroteAny)
+                continue;
+
+            writerParked = true;
+            if (!hasPending())
+                LockSupport.park(DebugLogger.class);
+            writerParked = false;
+        }
+    }
+
+    private static synchronized boolean hasPending() {
+        return dropped.get() > 0 || sequences.get((int) (head & MASK)) == head + 1;
+    }
+
+    /** Moves every published entry to the file. Returns whether there were any. */
+    private static boolean drain() {
+        boolean any = false;
+
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            appendLine(System.currentTimeMillis(), LogLevel.WARN, "DebugLogger",
+                    lost + " messages dropped, log buffer full");
+            any = true;
+        }
+
+        while (true) {
+            int index = (int) (head & MASK);
+            if (sequences.getAcquire(index) != head + 1)
+                break;
+
+            Entry entry = slots[index];
+            slots[index] = null;
+            sequences.setRelease(index, head + CAPACITY);
+            head++;
+
+            appendLine(entry.millis(), entry.level(), entry.header(), entry.message());
+            any = true;
+            if (pendingText.length() >= WRITE_BATCH_BYTES)
+                write();
+        }
+
+        write();
+        return any;
+    }
+
+    private static void appendLine(long millis, LogLevel level, String header, String message) {
+        pendingText.append('[').append(timestamp(millis)).append("] [").append(level).append("] [")
+                .append(header).append("] ").append(message).append(System.lineSeparator());
+    }
+
+    private static LogLevel initialThreshold() {
+        String configured = System.getProperty("td.log.level", System.getenv("TD_LOG_LEVEL"));
+        if (configured == null || configured.isBlank())
+            return LogLevel.INFO;
+
+        try {
+            return LogLevel.valueOf(configured.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown log level '" + configured + "', using INFO");
+            return LogLevel.INFO;
+        }
+    }
+
+    /** Formats at most once per second of log time. */
+    private static String timestamp(long millis) {
+        long second = Math.floorDiv(millis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedTimestamp = LocalDateTime.ofInstant(Instant.ofEpochSecond(second), ZoneId.systemDefault())
+                    .format(TIMESTAMP);
+        }
+        return cachedTimestamp;
+    }
+
+    // Plain write, no force: the page cache is enough for a debug log
+    private static void write() {
+        if (pendingText.isEmpty())
+            return;
+
+        ByteBuffer bytes = ByteBuffer.wrap(pendingText.toString().getBytes(StandardCharsets.UTF_8));
+        pendingText.setLength(0);
+        if (output == null)
+            return;
+
+        try {
+            output.write(bytes);
+        } catch (IOException e) {
+            System.err.println("Logging failed: " + e.getMessage());
+        }
+    }
 }
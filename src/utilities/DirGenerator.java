@@ -1,5 +1,7 @@
 package utilities;
 
+import engine.SnapshotGuard;
+
 import java.io.*;
 import java.nio.file.*;
 import java.util.*;
@@ -189,7 +191,7 @@ public class DirGenerator implements Loggable {
                     createdDirs, createdFiles, createdHiddenFiles, createdLockedDirs, skippedPaths, errorPaths);
 
         } catch (Exception e) {
-            log("Generation FAILED: " + e.getMessage());
+            log(LogLevel.ERROR, "Generation FAILED: " + e.getMessage());
             return new GenerationResult(false, "Generation failed: " + e.getMessage(),
                     createdDirs, createdFiles, createdHiddenFiles, createdLockedDirs, skippedPaths, errorPaths);
         }
@@ -202,10 +204,10 @@ public class DirGenerator implements Loggable {
         StringBuilder builder = null;
         boolean explicitHidden = false;
         boolean explicitLocked = false;
-        int lineNo = 0;
 
-        for (String raw : lines) {
-            lineNo++;
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNo = i + 1;
+            String raw = lines.get(i);
             String line = raw.trim();
 
             if (line.isEmpty() || line.startsWith("#"))
@@ -280,7 +282,7 @@ public class DirGenerator implements Loggable {
         try {
             Path path = base.resolve(entry.path()).toAbsolutePath();
 
-            log("Resolved path: " + path);
+            log(LogLevel.DEBUG, () -> "Resolved path: " + path);
 
             if (entry.isDirectory()) {
                 processDirectory(entry, path, config, createdDirs, createdLockedDirs, skippedPaths, createdHiddenFiles);
@@ -290,7 +292,7 @@ public class DirGenerator implements Loggable {
 
         } catch (Exception ex) {
             errorPaths.add(entry.path() + ": " + ex.getMessage());
-            log("ERROR processing " + entry.path() + ": " + ex.getMessage());
+            log(LogLevel.ERROR, "ERROR processing " + entry.path() + ": " + ex.getMessage());
         }
     }
 
@@ -306,7 +308,7 @@ public class DirGenerator implements Loggable {
         try {
             Path path = base.resolve(entry.path()).toAbsolutePath();
 
-            log("Resolved path (without locking): " + path);
+            log(LogLevel.DEBUG, () -> "Resolved path (without locking): " + path);
 
             if (entry.isDirectory()) {
                 processDirectoryWithoutLocking(entry, path, config, createdDirs, skippedPaths, createdHiddenFiles);
@@ -316,7 +318,7 @@ public class DirGenerator implements Loggable {
 
         } catch (Exception ex) {
             errorPaths.add(entry.path() + ": " + ex.getMessage());
-            log("ERROR processing " + entry.path() + " (without locking): " + ex.getMessage());
+            log(LogLevel.ERROR, "ERROR processing " + entry.path() + " (without locking): " + ex.getMessage());
         }
     }
 
@@ -324,15 +326,16 @@ public class DirGenerator implements Loggable {
             List<String> createdDirs, List<String> createdLockedDirs,
             List<String> skipped, List<String> createdHiddenDirs) throws IOException {
 
-        Path finalPath = dir;
         String os = System.getProperty("os.name").toLowerCase();
+        boolean dotPrefix = entry.hidden() && config.createHiddenFiles()
+                && !os.contains("win") && !dir.getFileName().toString().startsWith(".");
+        Path finalPath = dotPrefix ? dir.resolveSibling("." + dir.getFileName()) : dir;
 
         // Handle hidden directories on Linux/Unix
         if (entry.hidden() && config.createHiddenFiles()) {
-            if (!os.contains("win") && !dir.getFileName().toString().startsWith(".")) {
-                finalPath = dir.resolveSibling("." + dir.getFileName());
+            if (dotPrefix) {
                 createdHiddenDirs.add(finalPath.toString());
-                log("Creating hidden directory (added dot prefix): " + finalPath);
+                log(LogLevel.DEBUG, () -> "Creating hidden directory (added dot prefix): " + finalPath);
             } else if (os.contains("win")) {
                 // On Windows, we'll create it normally first, then hide it
                 createdHiddenDirs.add(dir.toString());
@@ -342,26 +345,26 @@ public class DirGenerator implements Loggable {
         if (!Files.exists(finalPath)) {
             Files.createDirectories(finalPath);
             createdDirs.add(finalPath.toString());
-            log("Created directory: " + finalPath);
+            log(LogLevel.DEBUG, () -> "Created directory: " + finalPath);
 
             // Hide directory on Windows after creation
             if (entry.hidden() && config.createHiddenFiles() && os.contains("win")) {
                 try {
                     new ProcessBuilder("attrib", "+H", finalPath.toAbsolutePath().toString()).start().waitFor();
-                    log("Hidden directory on Windows: " + finalPath);
+                    log(LogLevel.DEBUG, () -> "Hidden directory on Windows: " + finalPath);
                 } catch (Exception e) {
-                    log("Could not hide directory on Windows: " + e.getMessage());
+                    log(LogLevel.WARN, "Could not hide directory on Windows: " + e.getMessage());
                 }
             }
 
             if (entry.locked() && config.createLockedDoors()) {
                 lockDirectoryWithChmod(finalPath);
                 createdLockedDirs.add(finalPath.toString());
-                log("Created locked door: " + finalPath);
+                log(LogLevel.DEBUG, () -> "Created locked door: " + finalPath);
             }
         } else {
             skipped.add(finalPath.toString());
-            log("Skipped existing directory: " + finalPath);
+            log(LogLevel.DEBUG, () -> "Skipped existing directory: " + finalPath);
         }
     }
 
@@ -369,15 +372,16 @@ public class DirGenerator implements Loggable {
             List<String> createdDirs, List<String> skipped,
             List<String> createdHiddenDirs) throws IOException {
 
-        Path finalPath = dir;
         String os = System.getProperty("os.name").toLowerCase();
+        boolean dotPrefix = entry.hidden() && config.createHiddenFiles()
+                && !os.contains("win") && !dir.getFileName().toString().startsWith(".");
+        Path finalPath = dotPrefix ? dir.resolveSibling("." + dir.getFileName()) : dir;
 
         // Handle hidden directories on Linux/Unix
         if (entry.hidden() && config.createHiddenFiles()) {
-            if (!os.contains("win") && !dir.getFileName().toString().startsWith(".")) {
-                finalPath = dir.resolveSibling("." + dir.getFileName());
+            if (dotPrefix) {
                 createdHiddenDirs.add(finalPath.toString());
-                log("Creating hidden directory without locking (added dot prefix): " + finalPath);
+                log(LogLevel.DEBUG, () -> "Creating hidden directory without locking (added dot prefix): " + finalPath);
             } else if (os.contains("win")) {
                 // On Windows, we'll create it normally first, then hide it
                 createdHiddenDirs.add(dir.toString());
@@ -387,20 +391,20 @@ public class DirGenerator implements Loggable {
         if (!Files.exists(finalPath)) {
             Files.createDirectories(finalPath);
             createdDirs.add(finalPath.toString());
-            log("Created directory (without locking): " + finalPath);
+            log(LogLevel.DEBUG, () -> "Created directory (without locking): " + finalPath);
 
             // Hide directory on Windows after creation
             if (entry.hidden() && config.createHiddenFiles() && os.contains("win")) {
                 try {
                     new ProcessBuilder("attrib", "+H", finalPath.toAbsolutePath().toString()).start().waitFor();
-                    log("Hidden directory on Windows: " + finalPath);
+                    log(LogLevel.DEBUG, () -> "Hidden directory on Windows: " + finalPath);
                 } catch (Exception e) {
-                    log("Could not hide directory on Windows: " + e.getMessage());
+                    log(LogLevel.WARN, "Could not hide directory on Windows: " + e.getMessage());
                 }
             }
         } else {
             skipped.add(finalPath.toString());
-            log("Skipped existing directory: " + finalPath);
+            log(LogLevel.DEBUG, () -> "Skipped existing directory: " + finalPath);
         }
     }
 
@@ -424,25 +428,25 @@ public class DirGenerator implements Loggable {
                 int exitCode = process.waitFor();
 
                 if (exitCode == 0) {
-                    log("Successfully locked directory with chmod 700: " + dir);
+                    log(LogLevel.DEBUG, () -> "Successfully locked directory with chmod 700: " + dir);
                     return true;
                 } else {
-                    log("Failed to lock directory with chmod. Error: " + errorOutput.toString());
+                    log(LogLevel.WARN, "Failed to lock directory with chmod. Error: " + errorOutput.toString());
                     return false;
                 }
             } else {
                 Process process = new ProcessBuilder("attrib", "+R", dir.toAbsolutePath().toString()).start();
                 int exitCode = process.waitFor();
                 if (exitCode == 0) {
-                    log("Applied read-only to directory on Windows: " + dir);
+                    log(LogLevel.DEBUG, () -> "Applied read-only to directory on Windows: " + dir);
                     return true;
                 } else {
-                    log("Failed to lock directory on Windows: " + dir);
+                    log(LogLevel.WARN, "Failed to lock directory on Windows: " + dir);
                     return false;
                 }
             }
         } catch (Exception e) {
-            log("Could not lock directory: " + e.getMessage());
+            log(LogLevel.WARN, "Could not lock directory: " + e.getMessage());
             return false;
         }
     }
@@ -456,7 +460,7 @@ public class DirGenerator implements Loggable {
         if (parent != null && !Files.exists(parent)) {
             Files.createDirectories(parent);
             createdDirs.add(parent.toString());
-            log("Created parent folder: " + parent);
+            log(LogLevel.DEBUG, () -> "Created parent folder: " + parent);
         }
 
         boolean shouldWrite = !Files.exists(file) || config.overwriteExisting();
@@ -464,13 +468,12 @@ public class DirGenerator implements Loggable {
         if (shouldWrite) {
             boolean hidden = entry.hidden() || shouldBeHidden(file, config);
 
-            Path finalPath = file;
             String os = System.getProperty("os.name").toLowerCase();
-            if (hidden && config.createHiddenFiles() && !os.contains("win")
-                    && !file.getFileName().toString().startsWith(".")) {
-                finalPath = file.resolveSibling("." + file.getFileName());
-            }
+            boolean dotPrefix = hidden && config.createHiddenFiles() && !os.contains("win")
+                    && !file.getFileName().toString().startsWith(".");
+            Path finalPath = dotPrefix ? file.resolveSibling("." + file.getFileName()) : file;
 
+            SnapshotGuard.beforeWrite(finalPath);
             Files.write(finalPath, entry.content().getBytes(config.encoding()));
 
             if (hidden && config.createHiddenFiles()) {
@@ -478,18 +481,18 @@ public class DirGenerator implements Loggable {
                     try {
                         new ProcessBuilder("attrib", "+H", finalPath.toAbsolutePath().toString()).start().waitFor();
                     } catch (Exception e) {
-                        log("Could not hide file on Windows: " + e.getMessage());
+                        log(LogLevel.WARN, "Could not hide file on Windows: " + e.getMessage());
                     }
                 }
                 createdHidden.add(finalPath.toString());
-                log("Created hidden file: " + finalPath);
+                log(LogLevel.DEBUG, () -> "Created hidden file: " + finalPath);
             } else {
                 createdFiles.add(finalPath.toString());
-                log("Created file: " + finalPath);
+                log(LogLevel.DEBUG, () -> "Created file: " + finalPath);
             }
         } else {
             skipped.add(file.toString());
-            log("Skipped existing file: " + file);
+            log(LogLevel.DEBUG, () -> "Skipped existing file: " + file);
         }
     }
 
@@ -515,14 +518,14 @@ public class DirGenerator implements Loggable {
         StringBuilder builder = null;
         boolean explicitHidden = false;
         boolean explicitLocked = false;
-        int lineNo = 0;
 
-        for (String raw : lines) {
-            lineNo++;
+        for (int i = 0; i < lines.size(); i++) {
+            int lineNo = i + 1;
+            String raw = lines.get(i);
             String line = raw.trim();
 
             if (line.isEmpty() || line.startsWith("#")) {
-                log("Ignored blank/comment line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Ignored blank/comment line " + lineNo);
                 continue;
             }
 
@@ -532,42 +535,42 @@ public class DirGenerator implements Loggable {
                 builder = null;
                 explicitHidden = false;
                 explicitLocked = true;
-                log("Parsed LOCKED_DIR at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed LOCKED_DIR at line " + lineNo);
             } else if (line.startsWith("HIDDEN_DIR:")) {
                 finish(entries, current, builder, explicitHidden, explicitLocked);
                 current = new FileSystemEntry(line.substring(11).trim(), true, "", true, false);
                 builder = null;
                 explicitHidden = true;
                 explicitLocked = false;
-                log("Parsed HIDDEN_DIR at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed HIDDEN_DIR at line " + lineNo);
             } else if (line.startsWith("DIR:")) {
                 finish(entries, current, builder, explicitHidden, explicitLocked);
                 current = new FileSystemEntry(line.substring(4).trim(), true, "", false, false);
                 builder = null;
                 explicitHidden = false;
                 explicitLocked = false;
-                log("Parsed DIR at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed DIR at line " + lineNo);
             } else if (line.startsWith("HIDDEN_FILE:")) {
                 finish(entries, current, builder, explicitHidden, explicitLocked);
                 current = new FileSystemEntry(line.substring(12).trim(), false, "", true, false);
                 builder = new StringBuilder();
                 explicitHidden = true;
                 explicitLocked = false;
-                log("Parsed HIDDEN_FILE at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed HIDDEN_FILE at line " + lineNo);
             } else if (line.startsWith("FILE:")) {
                 finish(entries, current, builder, explicitHidden, explicitLocked);
                 current = new FileSystemEntry(line.substring(5).trim(), false, "", false, false);
                 builder = new StringBuilder();
                 explicitHidden = false;
                 explicitLocked = false;
-                log("Parsed FILE at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed FILE at line " + lineNo);
             } else if (line.equals("END") || line.equals("END_FILE")) {
                 finish(entries, current, builder, explicitHidden, explicitLocked);
                 current = null;
                 builder = null;
                 explicitHidden = false;
                 explicitLocked = false;
-                log("Parsed END at line " + lineNo);
+                log(LogLevel.DEBUG, () -> "Parsed END at line " + lineNo);
             } else if (builder != null) {
                 builder.append(raw).append(config.lineSeparator());
             } else {
@@ -583,7 +586,7 @@ public class DirGenerator implements Loggable {
                 current = null;
                 explicitHidden = false;
                 explicitLocked = false;
-                log("Parsed standalone entry at line " + lineNo + ": " + cleanPath);
+                log(LogLevel.DEBUG, () -> "Parsed standalone entry at line " + lineNo + ": " + cleanPath);
             }
         }
 
@@ -621,16 +624,16 @@ public class DirGenerator implements Loggable {
                 Process process = new ProcessBuilder("chmod", "755", dir.toAbsolutePath().toString()).start();
                 int exitCode = process.waitFor();
                 if (exitCode == 0) {
-                    log("Successfully unlocked directory: " + dir);
+                    log(LogLevel.DEBUG, () -> "Successfully unlocked directory: " + dir);
                     return true;
                 }
             } else {
                 new ProcessBuilder("attrib", "-R", dir.toAbsolutePath().toString()).start().waitFor();
-                log("Removed read-only from directory on Windows: " + dir);
+                log(LogLevel.DEBUG, () -> "Removed read-only from directory on Windows: " + dir);
                 return true;
             }
         } catch (Exception e) {
-            log("Could not unlock directory: " + e.getMessage());
+            log(LogLevel.WARN, "Could not unlock directory: " + e.getMessage());
         }
         return false;
     }
@@ -1,10 +1,31 @@
 package utilities;
 
+import java.util.function.Supplier;
+
 public interface Loggable {
+
+    /**
+     * Severity of a log line. Lines below {@link DebugLogger#threshold()} are
+     * discarded before their message is built.
+     */
+    enum LogLevel {
+        DEBUG, INFO, WARN, ERROR
+    }
+
     // Default logging method uses class name as header
     default void log(String message) {
-        String header = this.getClass().getSimpleName(); // class name as header
-        DebugLogger.log(header, message);
+        log(LogLevel.INFO, message);
+    }
+
+    default void log(LogLevel level, String message) {
+        if (DebugLogger.isEnabled(level))
+            DebugLogger.log(level, this.getClass().getSimpleName(), message);
+    }
+
+    // Lazy variant: the supplier only runs when the level is enabled
+    default void log(LogLevel level, Supplier<String> message) {
+        if (DebugLogger.isEnabled(level))
+            DebugLogger.log(level, this.getClass().getSimpleName(), message.get());
     }
 
     // Static logging method, requires a class reference for header
@@ -17,4 +38,9 @@ public interface Loggable {
     static void log(String header, String message) {
         DebugLogger.log(header, message);
     }
-}
\ No newline at end of file
+
+    static void log(LogLevel level, String header, Supplier<String> message) {
+        if (DebugLogger.isEnabled(level))
+            DebugLogger.log(level, header, message.get());
+    }
+}
@@ -0,0 +1,261 @@
+package utilities;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Append-only log file that rolls over by size and by day.
+ * <p>
+ * When the live file reaches {@value #MAX_BYTES} bytes, or its first line is
+ * from an earlier day, it is renamed to {@code <name>-<timestamp>.log} and a
+ * fresh file is started. A background thread gzips the rotated segment and
+ * keeps only the newest {@value #RETAINED_SEGMENTS}.
+ * <p>
+ * Several game processes may append to the same file. Writes hold a shared
+ * lock on a sibling {@code .lock} file and rotation holds it exclusively, so
+ * a rename never lands in the middle of someone's write. Before writing, a
+ * process checks that its channel still points at the live file and reopens
+ * it if another process rotated, so no line ends up in a segment that is
+ * already being compressed.
+ */
+final class RotatingLogFile {
+
+    private static final long MAX_BYTES = 10L * 1024 * 1024;
+    private static final int RETAINED_SEGMENTS = 5;
+    private static final Duration STALE_TEMP_AGE = Duration.ofHours(1);
+    private static final DateTimeFormatter SEGMENT_STAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+
+    private final Path file;
+    private final String baseName;
+    private final String extension;
+    private final FileChannel lockChannel;
+    private final ExecutorService compressor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "debug-log-compressor");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        return thread;
+    });
+
+    private FileChannel channel;
+    private Object fileKey;
+    private LocalDate segmentDay;
+
+    RotatingLogFile(Path file) throws IOException {
+        this.file = file;
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        this.baseName = dot > 0 ? name.substring(0, dot) : name;
+        this.extension = dot > 0 ? name.substring(dot) : "";
+
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        lockChannel = FileChannel.open(file.resolveSibling(name + ".lock"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        open();
+
+        // Segments left behind by a session that exited before compressing them
+        compressor.execute(this::compressLeftovers);
+    }
+
+    /**
+     * Appends {@code bytes}, rotating first if the live file is full or from
+     * another day.
+     */
+    void write(ByteBuffer bytes) throws IOException {
+        if (channel.size() >= MAX_BYTES || !LocalDate.now().equals(segmentDay))
+            rotate();
+
+        FileLock lock = lockChannel.lock(0, Long.MAX_VALUE, true);
+        try {
+            reopenIfRotated();
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void rotate() throws IOException {
+        FileLock lock = lockChannel.lock();
+        try {
+            // Another process may have rotated while we waited for the lock
+            reopenIfRotated();
+            LocalDate today = LocalDate.now();
+            if (channel.size() < MAX_BYTES && (channel.size() == 0 || today.equals(segmentDay))) {
+                segmentDay = today;
+                return;
+            }
+
+            Path rotated = file.resolveSibling(baseName + "-" + LocalDateTime.now().format(SEGMENT_STAMP) + extension);
+            for (int i = 1; Files.exists(rotated) || Files.exists(gzipped(rotated)); i++)
+                rotated = file.resolveSibling(baseName + "-" + LocalDateTime.now().format(SEGMENT_STAMP) + "-" + i
+                        + extension);
+
+            try {
+                Files.move(file, rotated, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                // Typically Windows refusing to rename a file another process holds open
+                System.err.println("Log rotation failed: " + e.getMessage());
+                segmentDay = today;
+                return;
+            }
+            open();
+
+            Path segment = rotated;
+            compressor.execute(() -> compress(segment));
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void reopenIfRotated() throws IOException {
+        try {
+            Object current = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+            // Without file keys (Windows) renaming an open file fails anyway, so keep the channel
+            if (current == null || current.equals(fileKey))
+                return;
+        } catch (NoSuchFileException e) {
+            // Renamed away and not recreated yet
+        }
+
+        channel.close();
+        open();
+    }
+
+    private void open() throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        segmentDay = firstLineDay();
+    }
+
+    /** Day of the first line's "[yyyy-MM-dd ..." timestamp, or today for an empty file. */
+    private LocalDate firstLineDay() throws IOException {
+        byte[] head = new byte[11];
+        int read;
+        try (InputStream in = Files.newInputStream(file)) {
+            read = in.readNBytes(head, 0, head.length);
+        }
+        if (read == head.length && head[0] == '[') {
+            try {
+                return LocalDate.parse(new String(head, 1, 10, StandardCharsets.US_ASCII));
+            } catch (DateTimeParseException ignored) {
+                // Not one of our lines; treat the file as today's
+            }
+        }
+        return LocalDate.now();
+    }
+
+    /* ==========================
+       BACKGROUND COMPRESSION
+       ========================== */
+
+    private void compress(Path segment) {
+        Path target = gzipped(segment);
+        // Per-process temp name, in case two processes pick up the same leftover
+        Path tmp = target.resolveSibling(target.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(tmp))) {
+                Files.copy(segment, out);
+            }
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            Files.deleteIfExists(segment);
+        } catch (NoSuchFileException e) {
+            // Already compressed or pruned by another process
+            deleteQuietly(tmp);
+        } catch (IOException e) {
+            System.err.println("Failed to compress " + segment + ": " + e.getMessage());
+            deleteQuietly(tmp);
+        }
+        prune();
+    }
+
+    private void compressLeftovers() {
+        for (Path path : segments()) {
+            String name = path.getFileName().toString();
+            if (name.endsWith(extension))
+                compress(path);
+        }
+
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.toAbsolutePath().getParent(),
+                baseName + "-*.tmp")) {
+            FileTime staleBefore = FileTime.fromMillis(System.currentTimeMillis() - STALE_TEMP_AGE.toMillis());
+            for (Path tmp : stream) {
+                if (Files.getLastModifiedTime(tmp).compareTo(staleBefore) < 0)
+                    deleteQuietly(tmp);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to clean up log temp files: " + e.getMessage());
+        }
+        prune();
+    }
+
+    /** Deletes all but the newest segments, counting a segment and its .gz once. */
+    private void prune() {
+        List<Path> all = segments();
+        all.sort(Comparator.comparing((Path p) -> segmentName(p)).reversed());
+
+        List<String> kept = new ArrayList<>();
+        for (Path path : all) {
+            String name = segmentName(path);
+            if (kept.contains(name))
+                continue;
+            if (kept.size() < RETAINED_SEGMENTS) {
+                kept.add(name);
+                continue;
+            }
+            deleteQuietly(path);
+        }
+    }
+
+    /** Rotated segments, compressed or not, excluding temp files. */
+    private List<Path> segments() {
+        List<Path> found = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(file.toAbsolutePath().getParent(),
+                baseName + "-*")) {
+            for (Path path : stream) {
+                String name = path.getFileName().toString();
+                if (name.endsWith(extension) || name.endsWith(extension + ".gz"))
+                    found.add(path);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list log segments: " + e.getMessage());
+        }
+        return found;
+    }
+
+    private String segmentName(Path path) {
+        String name = path.getFileName().toString();
+        return name.endsWith(".gz") ? name.substring(0, name.length() - 3) : name;
+    }
+
+    private static Path gzipped(Path segment) {
+        return segment.resolveSibling(segment.getFileName() + ".gz");
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + path + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package utilities;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Status lines pinned to the top of the terminal while a stage runs.
+ * <p>
+ * On an ANSI terminal the top rows are taken out of the scrolling region,
+ * so command output scrolls underneath while the HUD stays put. Each
+ * {@link #update(String...)} compares the new lines with what is on screen
+ * and rewrites only the changed span of each changed row, with the cursor
+ * saved and restored around it, as one {@link TerminalWriter} frame. When the
+ * terminal width changes the rows are fenced off again and redrawn. Without
+ * ANSI support (IDE consoles, Windows {@code cmd}, {@link CLIUtils.RenderMode#INSTANT}
+ * runs) changed lines are simply printed again.
+ */
+public final class StatusHud {
+
+    private static final String SAVE_CURSOR = "\0337";
+    private static final String RESTORE_CURSOR = "\0338";
+    private static final String CLEAR_TO_EOL = "\033[K";
+    private static final String CLEAR_LINE = "\033[2K";
+
+    // The HUD that currently owns the top rows, so an abrupt exit can give them back
+    private static volatile StatusHud pinned;
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            StatusHud hud = pinned;
+            if (hud != null)
+                hud.close();
+        }, "status-hud-reset"));
+    }
+
+    private final String[] shown;
+    private final boolean ansi;
+    private final IntConsumer onResize = width -> resized = true;
+    private boolean open;
+    private volatile boolean resized;
+
+    public StatusHud(int rows) {
+        this.shown = new String[rows];
+        this.ansi = supportsAnsi();
+    }
+
+    /**
+     * Shows {@code lines}, one per HUD row; missing rows are left blank.
+     */
+    public synchronized void update(String... lines) {
+        if (!ansi) {
+            printChanged(lines);
+            return;
+        }
+        if (!open)
+            pin();
+
+        int width = CLIUtils.getTerminalWidth();
+        if (resized) {
+            // Re-fence the rows and redraw them all, the resize may have reflowed them
+            resized = false;
+            TerminalWriter.print(SAVE_CURSOR + "\033[" + (shown.length + 1) + "r" + RESTORE_CURSOR);
+            invalidate();
+        }
+
+        StringBuilder frame = new StringBuilder(SAVE_CURSOR);
+        boolean changed = false;
+        for (int row = 0; row < shown.length; row++) {
+            String next = row < lines.length && lines[row] != null ? lines[row] : "";
+            // Never let a row wrap into the scrolling region
+            if (next.length() >= width)
+                next = next.substring(0, Math.max(0, width - 1));
+
+            String previous = shown[row];
+            if (next.equals(previous))
+                continue;
+
+            drawChange(frame, row, previous, next);
+            shown[row] = next;
+            changed = true;
+        }
+        if (!changed)
+            return;
+
+        frame.append(RESTORE_CURSOR);
+        TerminalWriter.print(frame);
+        TerminalWriter.flush();
+    }
+
+    /**
+     * Forgets what is on screen so the next update redraws every row, e.g.
+     * after the screen was cleared.
+     */
+    public synchronized void invalidate() {
+        Arrays.fill(shown, null);
+    }
+
+    /**
+     * Clears the HUD rows and gives them back to the scrolling region.
+     */
+    public synchronized void close() {
+        if (open) {
+            StringBuilder frame = new StringBuilder(SAVE_CURSOR);
+            for (int row = 0; row < shown.length; row++)
+                frame.append(moveTo(row, 0)).append(CLEAR_LINE);
+            // Resetting the scrolling region homes the cursor, hence the save/restore
+            frame.append("\033[r").append(RESTORE_CURSOR);
+            TerminalWriter.print(frame);
+            TerminalWriter.flush();
+            open = false;
+            pinned = null;
+            CLIUtils.removeTerminalWidthListener(onResize);
+        }
+        invalidate();
+    }
+
+    private void pin() {
+        // Scroll existing output up out of the way, then fence off the top rows;
+        // setting the region homes the cursor, so park it at the bottom again
+        TerminalWriter.print("\033[999;1H" + "\n".repeat(shown.length)
+                + "\033[" + (shown.length + 1) + "r" + "\033[999;1H");
+        TerminalWriter.flush();
+        invalidate();
+        open = true;
+        pinned = this;
+        CLIUtils.addTerminalWidthListener(onResize);
+    }
+
+    /** Rewrites only the span between the common prefix and suffix. */
+    private static void drawChange(StringBuilder frame, int row, String previous, String next) {
+        if (previous == null) {
+            frame.append(moveTo(row, 0)).append(next).append(CLEAR_TO_EOL);
+            return;
+        }
+
+        int prefix = 0;
+        int limit = Math.min(previous.length(), next.length());
+        while (prefix < limit && previous.charAt(prefix) == next.charAt(prefix))
+            prefix++;
+
+        if (previous.length() != next.length()) {
+            frame.append(moveTo(row, prefix)).append(next, prefix, next.length()).append(CLEAR_TO_EOL);
+            return;
+        }
+
+        int end = next.length();
+        while (end > prefix && previous.charAt(end - 1) == next.charAt(end - 1))
+            end--;
+        frame.append(moveTo(row, prefix)).append(next, prefix, end);
+    }
+
+    private void printChanged(String... lines) {
+        for (int row = 0; row < shown.length; row++) {
+            String next = row < lines.length && lines[row] != null ? lines[row] : "";
+            if (next.equals(shown[row]))
+                continue;
+            TerminalWriter.println(next);
+            shown[row] = next;
+        }
+        TerminalWriter.flush();
+    }
+
+    private static String moveTo(int row, int column) {
+        return "\033[" + (row + 1) + ";" + (column + 1) + "H";
+    }
+
+    private static boolean supportsAnsi() {
+        String os = System.getProperty("os.name").toLowerCase();
+        return System.console() != null && !os.contains("win")
+                && CLIUtils.getRenderMode() != CLIUtils.RenderMode.INSTANT;
+    }
+}
@@ -0,0 +1,71 @@
+package utilities;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.FunctionDescriptor;
+import java.lang.foreign.Linker;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.MethodHandle;
+
+/**
+ * Reads the terminal size without starting a process.
+ * <p>
+ * Calls {@code ioctl(fd, TIOCGWINSZ, &winsize)} through the foreign function
+ * API on stdout, stdin and stderr in turn, so it works as long as any of them
+ * is a terminal. A probe is a single system call, cheap enough to repeat
+ * every so often to notice resizes. On platforms without {@code ioctl}
+ * (Windows) the probe reports nothing and callers fall back.
+ */
+final class TerminalProbe {
+
+    private static final int[] FDS = { 1, 0, 2 };
+    private static final boolean MAC = System.getProperty("os.name").toLowerCase().contains("mac");
+    private static final long TIOCGWINSZ = MAC ? 0x40087468L : 0x5413L;
+
+    private static final MethodHandle IOCTL = lookupIoctl();
+    // struct winsize { unsigned short ws_row, ws_col, ws_xpixel, ws_ypixel; }
+    private static final MemorySegment WINSIZE = IOCTL == null ? null : Arena.global().allocate(8, 2);
+
+    private TerminalProbe() {
+    }
+
+    /**
+     * Returns the terminal's column count, or -1 if no standard stream is a
+     * terminal or the probe is unavailable.
+     */
+    static synchronized int columns() {
+        if (IOCTL == null)
+            return -1;
+
+        try {
+            for (int fd : FDS) {
+                int result = (int) IOCTL.invokeExact(fd, TIOCGWINSZ, WINSIZE);
+                if (result != 0)
+                    continue;
+                int columns = Short.toUnsignedInt(WINSIZE.get(ValueLayout.JAVA_SHORT, 2));
+                if (columns > 0)
+                    return columns;
+            }
+        } catch (Throwable e) {
+            Loggable.log("TerminalProbe", "ioctl(TIOCGWINSZ) failed: " + e);
+        }
+        return -1;
+    }
+
+    private static MethodHandle lookupIoctl() {
+        try {
+            Linker linker = Linker.nativeLinker();
+            return linker.defaultLookup().find("ioctl")
+                    .map(address -> linker.downcallHandle(address,
+                            FunctionDescriptor.of(ValueLayout.JAVA_INT, ValueLayout.JAVA_INT, ValueLayout.JAVA_LONG,
+                                    ValueLayout.ADDRESS),
+                            // ioctl(int fd, unsigned long request, ...)
+                            Linker.Option.firstVariadicArg(2)))
+                    .orElse(null);
+        } catch (RuntimeException e) {
+            // Native access disabled or an unsupported platform
+            Loggable.log("TerminalProbe", "Native terminal probe unavailable: " + e.getMessage());
+            return null;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package utilities;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+/**
+ * Frame-based writer for the terminal.
+ * <p>
+ * Output is collected with {@link #print} / {@link #println} and goes out
+ * on {@link #flush()}, which encodes the whole frame into a reused buffer
+ * and hands it to stdout in a single write, rather than going through
+ * {@code System.out}'s locking, encoding and flushing for every piece.
+ * Anything still buffered in {@code System.out} is flushed first so the two
+ * never interleave out of order. If {@code System.out} has been replaced
+ * (output captured by a harness, for instance) frames are written there
+ * instead of to the raw stdout descriptor.
+ */
+public final class TerminalWriter {
+
+    private static final int INITIAL_CAPACITY = 8 * 1024;
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private static final PrintStream originalOut = System.out;
+    private static final FileOutputStream stdout = new FileOutputStream(FileDescriptor.out);
+    private static final CharsetEncoder encoder = System.out.charset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+    private static final StringBuilder frame = new StringBuilder(INITIAL_CAPACITY);
+    private static ByteBuffer encoded = ByteBuffer.allocate(INITIAL_CAPACITY * 2);
+
+    private TerminalWriter() {
+    }
+
+    public static synchronized void print(CharSequence text) {
+        frame.append(text);
+    }
+
+    public static synchronized void print(char c) {
+        frame.append(c);
+    }
+
+    public static synchronized void println(CharSequence text) {
+        frame.append(text).append(LINE_SEPARATOR);
+    }
+
+    public static synchronized void println() {
+        frame.append(LINE_SEPARATOR);
+    }
+
+    /**
+     * Writes the collected frame, if any, in one go.
+     */
+    public static synchronized void flush() {
+        if (frame.isEmpty())
+            return;
+
+        encode();
+        frame.setLength(0);
+
+        System.out.flush();
+        try {
+            if (System.out == originalOut) {
+                stdout.write(encoded.array(), 0, encoded.limit());
+            } else {
+                System.out.write(encoded.array(), 0, encoded.limit());
+                System.out.flush();
+            }
+        } catch (IOException e) {
+            // Same as PrintStream: a broken terminal is not worth crashing over
+        }
+    }
+
+    private static void encode() {
+        CharBuffer chars = CharBuffer.wrap(frame);
+        encoder.reset();
+        encoded.clear();
+
+        CoderResult result = encoder.encode(chars, encoded, true);
+        while (result.isOverflow()) {
+            grow();
+            result = encoder.encode(chars, encoded, true);
+        }
+        while (encoder.flush(encoded).isOverflow())
+            grow();
+        encoded.flip();
+    }
+
+    private static void grow() {
+        ByteBuffer larger = ByteBuffer.allocate(encoded.capacity() * 2);
+        encoded.flip();
+        larger.put(encoded);
+        encoded = larger;
+    }
+}